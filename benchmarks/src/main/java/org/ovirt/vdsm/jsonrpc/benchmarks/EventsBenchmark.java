@@ -0,0 +1,132 @@
+package org.ovirt.vdsm.jsonrpc.benchmarks;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ovirt.vdsm.jsonrpc.client.JsonRpcEvent;
+import org.ovirt.vdsm.jsonrpc.client.events.EventPublisher;
+import org.ovirt.vdsm.jsonrpc.client.events.EventSubscriber;
+import org.ovirt.vdsm.jsonrpc.client.events.SubscriptionHolder;
+import org.ovirt.vdsm.jsonrpc.client.events.SubscriptionMatcher;
+
+/**
+ * Matching of events to subscriptions and their delivery by {@link EventPublisher}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventsBenchmark {
+    private static final int EVENTS = 1000;
+    private static final int EVENT_TIMEOUT_IN_HOURS = 1;
+
+    @Param({ "1000" })
+    private int subscriptions;
+
+    private SubscriptionMatcher matcher;
+    private EventPublisher publisher;
+    private JsonRpcEvent event;
+    private final AtomicLong delivered = new AtomicLong();
+
+    private static class CountingSubscriber extends EventSubscriber {
+        private final AtomicLong counter;
+
+        CountingSubscriber(String subscriptionId, AtomicLong counter) {
+            super(subscriptionId);
+            this.counter = counter;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(Map<String, Object> map) {
+            this.counter.incrementAndGet();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    /**
+     * Mix of specific subscriptions and wildcards as used by the engine.
+     */
+    private String subscriptionId(int i) {
+        switch (i % 3) {
+        case 0:
+            return "host" + i + Payloads.EVENT_METHOD + new UUID(0, i);
+        case 1:
+            return "host" + i + "|*|*|*";
+        default:
+            return "host" + i + "|virt|*|*";
+        }
+    }
+
+    @Setup
+    public void setup() {
+        this.matcher = new SubscriptionMatcher();
+        for (int i = 0; i < this.subscriptions; i++) {
+            this.matcher.add(new SubscriptionHolder(new CountingSubscriber(subscriptionId(i), this.delivered)));
+        }
+        this.matcher.add(new SubscriptionHolder(new CountingSubscriber("*|*|VM_status|*", this.delivered)));
+
+        this.publisher = new EventPublisher(new ForkJoinPool(Runtime.getRuntime().availableProcessors()),
+                EVENT_TIMEOUT_IN_HOURS);
+        this.publisher.subscribe(new CountingSubscriber("*|virt|VM_status|*", this.delivered));
+
+        this.event = JsonRpcEvent.fromByteArray(Payloads.event(256));
+        this.event.setMethod("host1" + this.event.getMethod());
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.publisher.close();
+    }
+
+    @Benchmark
+    public Set<SubscriptionHolder> match() {
+        return this.matcher.match(this.event);
+    }
+
+    /**
+     * Events processed by the publisher and delivered to a subscriber.
+     */
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void process() {
+        long target = this.delivered.get() + EVENTS;
+        for (int i = 0; i < EVENTS; i++) {
+            this.publisher.process(this.event);
+        }
+        while (this.delivered.get() < target) {
+            Thread.onSpinWait();
+        }
+    }
+}
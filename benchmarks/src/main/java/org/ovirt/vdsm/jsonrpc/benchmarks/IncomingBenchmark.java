@@ -0,0 +1,95 @@
+package org.ovirt.vdsm.jsonrpc.benchmarks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ovirt.vdsm.jsonrpc.client.ClientConnectionException;
+import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.StompClient;
+
+/**
+ * Decoding of incoming frames by {@link StompClient#processIncoming()} where socket reads are replaced by copying
+ * from a synthetic stream of MESSAGE frames.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IncomingBenchmark {
+    private static final int FRAMES = 64;
+
+    @Param({ "256", "65536" })
+    private int size;
+
+    @Param({ "16384" })
+    private int readSize;
+
+    private SyntheticClient client;
+
+    static class SyntheticClient extends StompClient {
+        private final ByteBuffer stream;
+        private final int readSize;
+        private int received;
+
+        SyntheticClient(ByteBuffer stream, int readSize, Blackhole blackhole) {
+            super(null, null, "localhost", 0);
+            this.stream = stream;
+            this.readSize = readSize;
+            addEventListener(message -> {
+                blackhole.consume(message);
+                this.received++;
+            });
+        }
+
+        @Override
+        protected int read(ByteBuffer buff) {
+            int length = Math.min(Math.min(this.readSize, buff.remaining()), this.stream.remaining());
+            ByteBuffer slice = this.stream.slice();
+            slice.limit(length);
+            buff.put(slice);
+            this.stream.position(this.stream.position() + length);
+            return length;
+        }
+
+        int receiveAll() throws IOException, ClientConnectionException {
+            this.stream.rewind();
+            this.received = 0;
+            while (this.stream.hasRemaining()) {
+                processIncoming();
+            }
+            return this.received;
+        }
+    }
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        byte[] frame = Payloads.frame(Payloads.json(this.size));
+        ByteBuffer stream = ByteBuffer.allocate(frame.length * FRAMES);
+        for (int i = 0; i < FRAMES; i++) {
+            stream.put(frame);
+        }
+        stream.flip();
+        this.client = new SyntheticClient(stream, this.readSize, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public int processIncoming() throws IOException, ClientConnectionException {
+        return this.client.receiveAll();
+    }
+}
@@ -0,0 +1,95 @@
+package org.ovirt.vdsm.jsonrpc.benchmarks;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ovirt.vdsm.jsonrpc.client.JsonRpcRequest;
+import org.ovirt.vdsm.jsonrpc.client.RequestBuilder;
+import org.ovirt.vdsm.jsonrpc.client.internal.MessageEnvelope;
+import org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Json serialization of requests and conversion of received json.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.USE_JAVA_ARRAY_FOR_JSON_ARRAY, true);
+
+    @Param({ "256", "65536" })
+    private int size;
+
+    private byte[] message;
+    private JsonNode result;
+    private JsonRpcRequest request;
+    private List<JsonRpcRequest> requests;
+
+    @Setup
+    public void setup() throws IOException {
+        this.message = Payloads.json(this.size);
+        this.result = MAPPER.readTree(this.message).get("result");
+        this.request = new RequestBuilder("VM.create")
+                .withParameter("vmID", "c2a1a4a8-1cbc-4e7e-9b3b-0e0d5b6cf7b5")
+                .withParameter("vmParams", MAPPER.convertValue(this.result, Map.class))
+                .build();
+        this.requests = List.of(this.request, this.request, this.request, this.request);
+    }
+
+    @Benchmark
+    public byte[] requestToByteArray() {
+        return JsonUtils.jsonToByteArray(this.request.toJson());
+    }
+
+    @Benchmark
+    public byte[] batchToByteArray() {
+        return JsonUtils.jsonToByteArray(this.requests);
+    }
+
+    @Benchmark
+    public JsonNode readTree() throws IOException {
+        return MAPPER.readTree(this.message);
+    }
+
+    @Benchmark
+    public List<MessageEnvelope> readEnvelope() throws IOException {
+        return MessageEnvelope.parse(MAPPER, this.message);
+    }
+
+    @Benchmark
+    public Map<String, Object> mapValues() {
+        return JsonUtils.mapValues(this.result);
+    }
+
+    /**
+     * Conversion used by <code>mapValues</code> before trees were converted directly.
+     */
+    @Benchmark
+    public Map<String, Object> mapValuesRoundTrip() throws IOException {
+        return MAPPER.readValue(MAPPER.writeValueAsBytes(this.result), new TypeReference<HashMap<String, Object>>() {
+        });
+    }
+}
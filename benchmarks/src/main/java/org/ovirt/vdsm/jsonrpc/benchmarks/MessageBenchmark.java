@@ -0,0 +1,62 @@
+package org.ovirt.vdsm.jsonrpc.benchmarks;
+
+import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_DESTINATION;
+import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_REPLY_TO;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ovirt.vdsm.jsonrpc.client.ClientConnectionException;
+import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message;
+
+/**
+ * Building and parsing of whole STOMP frames.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageBenchmark {
+
+    @Param({ "256", "65536" })
+    private int size;
+
+    private byte[] content;
+    private byte[] frame;
+
+    @Setup
+    public void setup() {
+        this.content = Payloads.json(this.size);
+        this.frame = buildFrame();
+    }
+
+    private byte[] buildFrame() {
+        return new Message().send()
+                .withHeader(HEADER_DESTINATION, Payloads.REQUEST_QUEUE)
+                .withHeader(HEADER_REPLY_TO, Payloads.RESPONSE_QUEUE)
+                .withContent(this.content)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] build() {
+        return buildFrame();
+    }
+
+    @Benchmark
+    public Message parse() throws ClientConnectionException {
+        return Message.parse(this.frame);
+    }
+}
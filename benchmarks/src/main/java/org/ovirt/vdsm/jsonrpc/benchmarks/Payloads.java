@@ -0,0 +1,59 @@
+package org.ovirt.vdsm.jsonrpc.benchmarks;
+
+import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_DESTINATION;
+import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.UTF8;
+
+import java.util.UUID;
+
+import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message;
+
+/**
+ * Synthetic messages resembling the ones sent by vdsm.
+ */
+final class Payloads {
+    static final String REQUEST_QUEUE = "jms.topic.vdsm_requests";
+    static final String RESPONSE_QUEUE = "jms.topic.vdsm_responses";
+    static final String EVENT_METHOD = "|virt|VM_status|";
+
+    private Payloads() {
+    }
+
+    /**
+     * @param size - Approximate size of the result in bytes.
+     * @return Json object describing as many vms as fit in the size.
+     */
+    static String result(int size) {
+        StringBuilder builder = new StringBuilder("{");
+        int vm = 0;
+        do {
+            if (vm > 0) {
+                builder.append(", ");
+            }
+            builder.append('"').append(new UUID(0, vm++)).append("\": {")
+                    .append("\"status\": \"Up\", \"elapsedTime\": 12345678901, \"cpuUser\": 1.25, ")
+                    .append("\"guestFQDN\": \"vm.example.com\", \"monitorResponse\": 0, ")
+                    .append("\"disks\": [{\"name\": \"vda\", \"readRate\": 0.0}, {\"name\": \"vdb\", \"readRate\": 2.5}]}");
+        } while (builder.length() < size);
+        return builder.append('}').toString();
+    }
+
+    static byte[] json(int size) {
+        return ("{\"jsonrpc\": \"2.0\", \"result\": " + result(size) + ", \"id\": \"" + new UUID(1, 1) + "\"}")
+                .getBytes(UTF8);
+    }
+
+    static byte[] event(int size) {
+        return ("{\"jsonrpc\": \"2.0\", \"method\": \"" + EVENT_METHOD + "1\", \"params\": " + result(size) + "}")
+                .getBytes(UTF8);
+    }
+
+    /**
+     * @return MESSAGE frame delivering the content to the response queue.
+     */
+    static byte[] frame(byte[] content) {
+        return new Message().message()
+                .withHeader(HEADER_DESTINATION, RESPONSE_QUEUE)
+                .withContent(content)
+                .build();
+    }
+}
@@ -0,0 +1,100 @@
+package org.ovirt.vdsm.jsonrpc.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ovirt.vdsm.jsonrpc.client.JsonRpcRequest;
+import org.ovirt.vdsm.jsonrpc.client.internal.Call;
+import org.ovirt.vdsm.jsonrpc.client.internal.ClientPolicy;
+import org.ovirt.vdsm.jsonrpc.client.internal.ResponseTracker;
+import org.ovirt.vdsm.jsonrpc.client.reactors.ReactorClient;
+import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.StompClient;
+import org.ovirt.vdsm.jsonrpc.client.utils.ResponseTracking;
+import org.ovirt.vdsm.jsonrpc.client.utils.retry.RetryContext;
+
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.LongNode;
+
+/**
+ * Registration of requests in {@link ResponseTracker} followed by receiving the response or by expiry.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseTrackerBenchmark {
+    private static final int EXPIRED = 10000;
+    private static final ClientPolicy RESPONDED_POLICY = new ClientPolicy(180000, 3, 0);
+    private static final ClientPolicy EXPIRED_POLICY = new ClientPolicy(0, 1, 0);
+
+    private final AtomicLong ids = new AtomicLong();
+    private ResponseTracker tracker;
+    private ReactorClient client;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.tracker = new ResponseTracker();
+        Thread thread = new Thread(this.tracker, "ResponseTracker");
+        thread.setDaemon(true);
+        thread.start();
+        this.client = new StompClient(null, null, "localhost", 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.tracker.close();
+    }
+
+    private Call track(ClientPolicy policy, long deadline) {
+        JsonRpcRequest request =
+                new JsonRpcRequest("Host.getStats", IntNode.valueOf(0), LongNode.valueOf(this.ids.incrementAndGet()));
+        Call call = new Call(request);
+        this.tracker.registerCall(request, call);
+        this.tracker.registerTrackingRequest(request,
+                new ResponseTracking(request, call, new RetryContext(policy), deadline, this.client, false));
+        return call;
+    }
+
+    /**
+     * Request which receives its response before the timeout.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Threads(4)
+    public Object registerAndRemove() {
+        Call call = track(RESPONDED_POLICY, System.currentTimeMillis() + RESPONDED_POLICY.getRetryTimeOut());
+        return this.tracker.removeCall(call.getId());
+    }
+
+    /**
+     * Batch of requests which expire and fail without being retried.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OperationsPerInvocation(EXPIRED)
+    public void expire() throws InterruptedException {
+        long deadline = System.currentTimeMillis();
+        Call[] calls = new Call[EXPIRED];
+        for (int i = 0; i < EXPIRED; i++) {
+            calls[i] = track(EXPIRED_POLICY, deadline);
+        }
+        for (Call call : calls) {
+            call.get();
+        }
+    }
+}
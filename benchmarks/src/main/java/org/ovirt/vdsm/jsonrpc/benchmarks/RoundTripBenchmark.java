@@ -0,0 +1,77 @@
+package org.ovirt.vdsm.jsonrpc.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ovirt.vdsm.jsonrpc.client.ClientConnectionException;
+import org.ovirt.vdsm.jsonrpc.client.reactors.ReactorClient;
+import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.StompClientPolicy;
+import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.StompReactor;
+import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.StompServer;
+
+/**
+ * Loopback round trip through the test {@link StompServer}. The client sends to the queue it is subscribed to so
+ * every message is delivered back to it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoundTripBenchmark {
+    private static final String HOSTNAME = "localhost";
+    private static final int TIMEOUT = 10;
+
+    @Param({ "256", "65536" })
+    private int size;
+
+    private StompServer server;
+    private StompReactor reactor;
+    private ReactorClient client;
+    private byte[] message;
+    private final BlockingQueue<byte[]> received = new ArrayBlockingQueue<>(1);
+
+    @Setup
+    public void setup() throws IOException, ClientConnectionException {
+        this.server = new StompServer(HOSTNAME);
+        this.reactor = new StompReactor();
+        this.client = this.reactor.createClient(HOSTNAME, this.server.getPort());
+        this.client.setClientPolicy(new StompClientPolicy(180000, 0, 0,
+                Payloads.RESPONSE_QUEUE, Payloads.RESPONSE_QUEUE));
+        this.client.addEventListener(this.received::add);
+        this.client.connect();
+        this.message = Payloads.json(this.size);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.client.close();
+        this.reactor.close();
+        this.server.stop();
+    }
+
+    @Benchmark
+    public byte[] roundTrip() throws InterruptedException {
+        this.client.sendMessage(this.message);
+        byte[] response = this.received.poll(TIMEOUT, TimeUnit.SECONDS);
+        if (response == null) {
+            throw new IllegalStateException("Message not delivered back");
+        }
+        return response;
+    }
+}
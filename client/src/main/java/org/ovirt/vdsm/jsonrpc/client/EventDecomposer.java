@@ -1,13 +1,18 @@
 package org.ovirt.vdsm.jsonrpc.client;
 
 import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.logException;
+import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.toMap;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ovirt.vdsm.jsonrpc.client.utils.JsonFragment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,15 +29,60 @@ public class EventDecomposer {
     }
 
     /**
-     * Decomposes an event to a map.
+     * Decomposes an event to a map. The map is computed once per event and shared by all its subscribers so neither it
+     * nor the maps nested in it can be modified. Json arrays are decomposed to <code>Object[]</code> which can't be
+     * protected, subscribers must not modify them.
      * @param event represents event received.
      * @return Decomposed event as <code>Map</code>.
      */
     public Map<String, Object> decompose(JsonRpcEvent event) {
+        Map<String, Object> map = event.getDecomposed();
+        if (map != null) {
+            return map;
+        }
+        synchronized (event) {
+            map = event.getDecomposed();
+            if (map == null) {
+                map = decomposeParams(event);
+                if (map != null) {
+                    map = unmodifiableMap(map);
+                    event.setDecomposed(map);
+                }
+            }
+            return map;
+        }
+    }
+
+    private static Map<String, Object> unmodifiableMap(Map<String, Object> map) {
+        map.replaceAll((key, value) -> unmodifiable(value));
+        return Collections.unmodifiableMap(map);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object unmodifiable(Object value) {
+        if (value instanceof Map) {
+            return unmodifiableMap((Map<String, Object>) value);
+        }
+        if (value instanceof List) {
+            List<Object> list = (List<Object>) value;
+            list.replaceAll(EventDecomposer::unmodifiable);
+            return Collections.unmodifiableList(list);
+        }
+        if (value instanceof Object[]) {
+            Object[] array = (Object[]) value;
+            for (int i = 0; i < array.length; i++) {
+                array[i] = unmodifiable(array[i]);
+            }
+        }
+        return value;
+    }
+
+    private Map<String, Object> decomposeParams(JsonRpcEvent event) {
         try {
-            return mapper.readValue(mapper.writeValueAsBytes(event.getParams()),
-                    new TypeReference<Map<String, Object>>() {
-                    });
+            TypeReference<Map<String, Object>> type = new TypeReference<Map<String, Object>>() {
+            };
+            JsonFragment raw = event.getRawParams();
+            return raw != null ? raw.readValue(mapper, type) : toMap(event.getParams(), new LinkedHashMap<>());
         } catch (IOException e) {
             logException(log, "Event decomposition failed", e);
             return null;
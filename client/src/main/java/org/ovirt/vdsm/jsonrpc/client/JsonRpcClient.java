@@ -4,13 +4,17 @@ import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.getTimeout;
 import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.jsonToByteArray;
 import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.mapValues;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.NullNode;
+import org.ovirt.vdsm.jsonrpc.client.internal.AsyncCall;
 import org.ovirt.vdsm.jsonrpc.client.internal.Call;
 import org.ovirt.vdsm.jsonrpc.client.internal.ClientPolicy;
 import org.ovirt.vdsm.jsonrpc.client.internal.JsonRpcCall;
@@ -33,7 +37,7 @@ public class JsonRpcClient {
     private final ReactorClient client;
     private ResponseTracker tracker;
     private ClientPolicy policy;
-    private ScheduledExecutorService executorService;
+    private Executor callbackExecutor;
 
     /**
      * Wraps {@link ReactorClient} to hide response update details.
@@ -71,8 +75,19 @@ public class JsonRpcClient {
     }
 
     public void setExecutorService(ScheduledExecutorService executorService) {
-        this.executorService = executorService;
-        this.tracker.setExecutorService(executorService);
+        setCallbackExecutor(executorService);
+    }
+
+    /**
+     * Sets executor used to notify {@link BrokerCommandCallback}s. Callbacks are submitted with
+     * {@link Executor#execute(Runnable)} so they start immediately when the executor has a free thread, see
+     * {@link org.ovirt.vdsm.jsonrpc.client.utils.CallbackExecutors} for executors suited to blocking callbacks.
+     *
+     * @param callbackExecutor - used to run callbacks.
+     */
+    public void setCallbackExecutor(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+        this.tracker.setCallbackExecutor(callbackExecutor);
     }
 
     /**
@@ -81,16 +96,25 @@ public class JsonRpcClient {
      * @param req - Request which is about to be sent.
      * @return Future representation of the response or <code>null</code> if sending failed.
      * @throws ClientConnectionException is thrown when connection issues occur.
+     * @throws OutboxFullException is thrown when the connection stays not writable for the outbox timeout.
      * @throws RequestAlreadySentException when the same requests is attempted to be send twice.
      */
     public Future<JsonRpcResponse> call(JsonRpcRequest req) throws ClientConnectionException {
         final Call call = new Call(req);
         this.tracker.registerCall(req, call);
         retryCall(req, call);
+        boolean rejected = false;
         try {
-            this.getClient().sendMessage(jsonToByteArray(req.toJson()));
+            send(jsonToByteArray(req.toJson()));
+        } catch (OutboxFullException ex) {
+            rejected = true;
+            throw ex;
         } finally {
-            retryCall(req, call);
+            if (rejected) {
+                removeCall(call);
+            } else {
+                retryCall(req, call);
+            }
         }
         return call;
     }
@@ -102,7 +126,7 @@ public class JsonRpcClient {
         retryCall(req, call);
         boolean exceptionOccurred = false;
         try {
-            this.getClient().sendMessage(jsonToByteArray(req.toJson()));
+            send(jsonToByteArray(req.toJson()));
         } catch (ClientConnectionException ex) {
             exceptionOccurred = true;
             throw ex;
@@ -116,7 +140,65 @@ public class JsonRpcClient {
         return call;
     }
 
+    /**
+     * Sends single request and returns {@link CompletableFuture} representation of {@link JsonRpcResponse} which is
+     * completed by the thread processing the response. Cancelling the future stops tracking of the request.
+     *
+     * @param req - Request which is about to be sent.
+     * @return Future completed with the response or exceptionally when sending failed.
+     * @throws RequestAlreadySentException when the same requests is attempted to be send twice.
+     */
+    public CompletableFuture<JsonRpcResponse> callAsync(JsonRpcRequest req) {
+        final AsyncCall call = new AsyncCall(req, this.tracker);
+        this.tracker.registerCall(req, call);
+        retryCall(req, call);
+        try {
+            send(jsonToByteArray(req.toJson()));
+            retryCall(req, call);
+        } catch (ClientConnectionException ex) {
+            this.tracker.removeCall(call.getId());
+            call.completeExceptionally(ex);
+        }
+        return call;
+    }
+
+    /**
+     * Sends requests as a single batch in one frame and returns {@link CompletableFuture} representation of each
+     * {@link JsonRpcResponse} in the order of the requests. Responses are tracked per request so when only some of them
+     * time out just those are sent again.
+     *
+     * @param requests - Requests which are about to be sent.
+     * @return Futures completed with the responses or exceptionally when sending failed.
+     * @throws RequestAlreadySentException when any of the requests is attempted to be send twice.
+     */
+    public List<CompletableFuture<JsonRpcResponse>> batchCall(List<JsonRpcRequest> requests) {
+        List<CompletableFuture<JsonRpcResponse>> calls = new ArrayList<>(requests.size());
+        if (requests.isEmpty()) {
+            return calls;
+        }
+        List<ResponseTracking> trackings = new ArrayList<>(requests.size());
+        for (JsonRpcRequest request : requests) {
+            AsyncCall call = new AsyncCall(request, this.tracker);
+            calls.add(call);
+            trackings.add(createTracking(request, call));
+        }
+        this.tracker.registerBatch(trackings);
+        try {
+            send(jsonToByteArray(requests));
+        } catch (ClientConnectionException ex) {
+            for (CompletableFuture<JsonRpcResponse> call : calls) {
+                this.tracker.removeCall(((AsyncCall) call).getId());
+                call.completeExceptionally(ex);
+            }
+        }
+        return calls;
+    }
+
     public void removeCall(Future<JsonRpcResponse> call) {
+        if (AsyncCall.class.isInstance(call)) {
+            this.tracker.removeCall(((AsyncCall) call).getId());
+            return;
+        }
         if (!Call.class.isInstance(call)) {
             return;
         }
@@ -124,10 +206,21 @@ public class JsonRpcClient {
     }
 
     private void retryCall(final JsonRpcRequest request, final JsonRpcCall call) {
-        ResponseTracking tracking =
-                new ResponseTracking(request, call, new RetryContext(policy), getTimeout(this.policy.getRetryTimeOut(),
-                        this.policy.getTimeUnit()), this.client, !Objects.equals(request.getMethod(), "Host.ping"));
-        this.tracker.registerTrackingRequest(request, tracking);
+        this.tracker.registerTrackingRequest(request, createTracking(request, call));
+    }
+
+    private ResponseTracking createTracking(final JsonRpcRequest request, final JsonRpcCall call) {
+        return new ResponseTracking(request, call, new RetryContext(policy), getTimeout(this.policy.getRetryTimeOut(),
+                this.policy.getTimeUnit()), this.client, !Objects.equals(request.getMethod(), "Host.ping"));
+    }
+
+    /**
+     * Sends a request once the connection is writable, see {@link ReactorClient#awaitWritable()}.
+     */
+    private void send(byte[] message) throws ClientConnectionException {
+        ReactorClient client = this.getClient();
+        client.awaitWritable();
+        client.sendMessage(message);
     }
 
     public ReactorClient getClient() throws ClientConnectionException {
@@ -150,15 +243,11 @@ public class JsonRpcClient {
             return;
         }
         call.addResponse(response);
-        if (call.getCallback() != null && executorService != null) {
+        if (call.getCallback() != null && callbackExecutor != null) {
             if (response.getError() != null) {
-                executorService.schedule(() -> call.getCallback().onFailure(mapValues(response.getError())),
-                        0,
-                        TimeUnit.SECONDS);
+                callbackExecutor.execute(() -> call.getCallback().onFailure(mapValues(response.getError())));
             } else {
-                executorService.schedule(() -> call.getCallback().onResponse(new JsonResponseUtil().populate(response)),
-                        0,
-                        TimeUnit.SECONDS);
+                callbackExecutor.execute(() -> call.getCallback().onResponse(new JsonResponseUtil().populate(response)));
             }
         }
     }
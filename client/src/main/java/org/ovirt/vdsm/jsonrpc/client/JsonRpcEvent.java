@@ -1,11 +1,14 @@
 package org.ovirt.vdsm.jsonrpc.client;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Map;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.ovirt.vdsm.jsonrpc.client.internal.MessageEnvelope;
+import org.ovirt.vdsm.jsonrpc.client.utils.JsonFragment;
 import org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils;
 
 /**
@@ -18,7 +21,9 @@ public class JsonRpcEvent {
             "{\"jsonrpc\": \"2.0\", \"method\": \"%s\", \"params\": %s}";
     private static final ObjectMapper MAPPER = new ObjectMapper();
     private String method;
-    private JsonNode params;
+    private volatile JsonNode params;
+    private volatile JsonFragment rawParams;
+    private volatile Map<String, Object> decomposed;
     private long arrivalTime;
 
     /**
@@ -44,14 +49,49 @@ public class JsonRpcEvent {
     }
 
     /**
-     * @return Content of an event.
+     * @return Content of an event. When the event was received with structured params they are parsed when this
+     *         method is called for the first time.
      */
     public JsonNode getParams() {
+        JsonFragment raw = this.rawParams;
+        if (raw != null) {
+            synchronized (this) {
+                raw = this.rawParams;
+                if (raw != null) {
+                    try {
+                        this.params = raw.toJsonNode(MAPPER);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    this.rawParams = null;
+                }
+            }
+        }
         return this.params;
     }
 
-    public void setParams(JsonNode node) {
+    public synchronized void setParams(JsonNode node) {
         this.params = node;
+        this.rawParams = null;
+        this.decomposed = null;
+    }
+
+    /**
+     * @return Not parsed content of an event or <code>null</code> when it is not available in this form.
+     */
+    public JsonFragment getRawParams() {
+        return this.rawParams;
+    }
+
+    /**
+     * @return Params decomposed by {@link EventDecomposer} and shared by all subscribers of this event.
+     */
+    Map<String, Object> getDecomposed() {
+        return this.decomposed;
+    }
+
+    void setDecomposed(Map<String, Object> decomposed) {
+        this.decomposed = decomposed;
     }
 
     /**
@@ -61,7 +101,25 @@ public class JsonRpcEvent {
      * @return Notification object.
      */
     public static JsonRpcEvent fromJsonNode(JsonNode node) {
-        JsonNode tmp = node.get("jsonrpc");
+        return new JsonRpcEvent(validate(node.get("jsonrpc"), node.get("method")), node.get("params"));
+    }
+
+    /**
+     * Validates and builds {@link JsonRpcEvent} based on fields read by streaming parser. Structured params are
+     * kept in not parsed form until they are requested.
+     *
+     * @param envelope - Top level fields of the notification.
+     * @return Notification object.
+     */
+    public static JsonRpcEvent fromEnvelope(MessageEnvelope envelope) {
+        JsonRpcEvent event =
+                new JsonRpcEvent(validate(envelope.getJsonrpc(), envelope.getMethod()), envelope.getParams());
+        event.rawParams = envelope.getRawParams();
+        return event;
+    }
+
+    private static String validate(JsonNode jsonrpc, JsonNode methodNode) {
+        JsonNode tmp = jsonrpc;
         if (tmp == null) {
             throw new IllegalArgumentException(
                     "'jsonrpc' field missing in node");
@@ -72,7 +130,7 @@ public class JsonRpcEvent {
             throw new IllegalArgumentException("Only jsonrpc 2.0 is supported");
         }
 
-        tmp = node.get("method");
+        tmp = methodNode;
         if (tmp == null) {
             throw new IllegalArgumentException("'method' field missing in node");
         }
@@ -86,8 +144,7 @@ public class JsonRpcEvent {
             throw new IllegalArgumentException(
                     "'method' field contains an empty string");
         }
-
-        return new JsonRpcEvent(method, node.get("params"));
+        return method;
     }
 
     /**
@@ -138,7 +195,9 @@ public class JsonRpcEvent {
 
     @Override
     public String toString() {
-        return "<JsonRpcEvent method: " + this.getMethod() + ", params: " + this.getParams().toString() + ">";
+        JsonFragment raw = this.rawParams;
+        Object params = raw != null ? raw : this.getParams();
+        return "<JsonRpcEvent method: " + this.getMethod() + ", params: " + params.toString() + ">";
     }
 
     public long getArrivalTime() {
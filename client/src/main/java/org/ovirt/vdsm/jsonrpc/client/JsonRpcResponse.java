@@ -3,9 +3,13 @@ package org.ovirt.vdsm.jsonrpc.client;
 import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.jsonToByteArray;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Map;
 import java.util.Objects;
 
+import org.ovirt.vdsm.jsonrpc.client.internal.MessageEnvelope;
+import org.ovirt.vdsm.jsonrpc.client.utils.JsonFragment;
+
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -16,7 +20,8 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
  */
 public final class JsonRpcResponse {
     private static final ObjectMapper MAPPER = new ObjectMapper();
-    private JsonNode result;
+    private volatile JsonNode result;
+    private volatile JsonFragment rawResult;
     private JsonNode error;
     private JsonNode id;
 
@@ -33,12 +38,38 @@ public final class JsonRpcResponse {
         this.id = id;
     }
 
+    /**
+     * @return Result of the call. When the response was received with structured result it is parsed when this
+     *         method is called for the first time.
+     */
     public JsonNode getResult() {
+        JsonFragment raw = this.rawResult;
+        if (raw != null) {
+            synchronized (this) {
+                raw = this.rawResult;
+                if (raw != null) {
+                    try {
+                        this.result = raw.toJsonNode(MAPPER);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    this.rawResult = null;
+                }
+            }
+        }
         return this.result;
     }
 
-    public void setResult(JsonNode result) {
+    public synchronized void setResult(JsonNode result) {
         this.result = result;
+        this.rawResult = null;
+    }
+
+    /**
+     * @return Not parsed result of the call or <code>null</code> when the result is not available in this form.
+     */
+    public JsonFragment getRawResult() {
+        return this.rawResult;
     }
 
     public JsonNode getError() {
@@ -76,7 +107,25 @@ public final class JsonRpcResponse {
      * @return Response object.
      */
     public static JsonRpcResponse fromJsonNode(JsonNode node) {
-        JsonNode jsonrpcNode = node.get("jsonrpc");
+        final JsonNode id = node.get("id");
+        validate(node.get("jsonrpc"), id);
+        return new JsonRpcResponse(node.get("result"), node.get("error"), id);
+    }
+
+    /**
+     * Validates and builds {@link JsonRpcResponse} based on fields read by streaming parser. Structured result is
+     * kept in not parsed form until it is requested.
+     * @param envelope - Top level fields of the response.
+     * @return Response object.
+     */
+    public static JsonRpcResponse fromEnvelope(MessageEnvelope envelope) {
+        validate(envelope.getJsonrpc(), envelope.getId());
+        JsonRpcResponse response = new JsonRpcResponse(envelope.getResult(), envelope.getError(), envelope.getId());
+        response.rawResult = envelope.getRawResult();
+        return response;
+    }
+
+    private static void validate(JsonNode jsonrpcNode, JsonNode id) {
         if (jsonrpcNode == null) {
             throw new IllegalArgumentException(
                     "'jsonrpc' field missing in node");
@@ -87,12 +136,9 @@ public final class JsonRpcResponse {
             throw new IllegalArgumentException("Only jsonrpc 2.0 is supported");
         }
 
-        final JsonNode id = node.get("id");
         if (id == null) {
             throw new IllegalArgumentException("Response missing id field");
         }
-
-        return new JsonRpcResponse(node.get("result"), node.get("error"), id);
     }
 
     /**
@@ -142,11 +188,12 @@ public final class JsonRpcResponse {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         JsonRpcResponse that = (JsonRpcResponse) o;
-        return Objects.equals(result, that.result) && Objects.equals(error, that.error) && Objects.equals(id, that.id);
+        return Objects.equals(getResult(), that.getResult()) && Objects.equals(error, that.error)
+                && Objects.equals(id, that.id);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(result, error, id);
+        return Objects.hash(getResult(), error, id);
     }
 }
@@ -0,0 +1,19 @@
+package org.ovirt.vdsm.jsonrpc.client;
+
+/**
+ * Exception used to inform user that a request was rejected because frames queued for the connection reached
+ * the limits defined by the client policy.
+ *
+ */
+public class OutboxFullException extends ClientConnectionException {
+
+    private static final long serialVersionUID = -2715084316702870313L;
+
+    public OutboxFullException(String message) {
+        super(message);
+    }
+
+    public OutboxFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,6 +1,8 @@
 package org.ovirt.vdsm.jsonrpc.client;
 
 import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.logException;
+import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.toMap;
+import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.toValue;
 
 import java.io.IOException;
 import java.lang.reflect.Array;
@@ -11,6 +13,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.ovirt.vdsm.jsonrpc.client.internal.JsonRpcError;
+import org.ovirt.vdsm.jsonrpc.client.utils.JsonFragment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,9 +52,10 @@ public class ResponseDecomposer {
     @SuppressWarnings("unchecked")
     public <T> T decomposeResponse(Class<T> clazz) {
         try {
-            T t = mapper.readValue(mapper.writeValueAsBytes(this.response.getResult()),
-                    new TypeReference<T>() {
-                    });
+            TypeReference<T> type = new TypeReference<T>() {
+            };
+            JsonFragment raw = this.response.getRawResult();
+            T t = raw != null ? raw.readValue(mapper, type) : (T) toValue(this.response.getResult());
             if (String.class.equals(clazz) && !String.class.isInstance(t)) {
                 t = (T) t.toString();
             }
@@ -91,9 +95,7 @@ public class ResponseDecomposer {
      */
     public Map<String, Object> decomposeError() {
         try {
-            Map<String, Object> status = mapper.readValue(mapper.writeValueAsBytes(this.response.getError()),
-                    new TypeReference<HashMap<String, Object>>() {
-                    });
+            Map<String, Object> status = toMap(this.response.getError(), new HashMap<>());
             Map<String, Object> map = new HashMap<>();
             map.put("status", status);
             return map;
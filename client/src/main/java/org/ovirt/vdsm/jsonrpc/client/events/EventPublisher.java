@@ -1,6 +1,8 @@
 package org.ovirt.vdsm.jsonrpc.client.events;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -11,6 +13,7 @@ import java.util.concurrent.Flow.Publisher;
 import java.util.concurrent.Flow.Subscriber;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.ovirt.vdsm.jsonrpc.client.ClientConnectionException;
@@ -34,6 +37,7 @@ public class EventPublisher implements Flow.Publisher<Map<String, Object>> {
     private final SubscriptionMatcher matcher;
     private final EventDecomposer decomposer;
     private final int eventTimeoutInHours;
+    private final BiConsumer<SubscriptionHolder, JsonRpcEvent> deliver = this::deliver;
 
     public EventPublisher(ExecutorService executorService, int eventTimeoutInHours) {
         this.executorService = executorService;
@@ -97,8 +101,14 @@ public class EventPublisher implements Flow.Publisher<Map<String, Object>> {
         process(JsonRpcEvent.fromMethodAndParams(subscriptionId, params));
     }
 
+    /**
+     * Submits processing of a holder unless it is already scheduled, so events of a subscriber are delivered by one
+     * task at a time and in order.
+     */
     private void process(SubscriptionHolder holder) {
-        this.executorService.submit(new EventCallable(holder, this.decomposer));
+        if (holder.hasPendingWork() && holder.schedule()) {
+            this.executorService.submit(new EventCallable(holder, this.decomposer));
+        }
     }
 
     private void clean(SubscriptionHolder holder) {
@@ -113,11 +123,12 @@ public class EventPublisher implements Flow.Publisher<Map<String, Object>> {
      *            which is submitted for processing.
      */
     public void process(JsonRpcEvent event) {
-        Set<SubscriptionHolder> holders = matcher.match(event);
-        holders.stream()
-                .peek(holder -> holder.putEvent(event))
-                .filter(SubscriptionHolder::canProcess)
-                .forEach(holder -> this.executorService.submit(new EventCallable(holder, this.decomposer)));
+        matcher.match(event, this.deliver);
+    }
+
+    private void deliver(SubscriptionHolder holder, JsonRpcEvent event) {
+        holder.putEvent(event);
+        process(holder);
     }
 
     /*
@@ -132,6 +143,33 @@ public class EventPublisher implements Flow.Publisher<Map<String, Object>> {
                 .sum();
     }
 
+    /**
+     * @return Number of events queued for all subscribers.
+     */
+    public long getQueuedEvents() {
+        return matcher.getAllSubscriptions().stream()
+                .mapToLong(SubscriptionHolder::getNumberOfEvents)
+                .sum();
+    }
+
+    /**
+     * @return Number of events dropped for all current subscribers.
+     */
+    public long getDroppedEvents() {
+        return matcher.getAllSubscriptions().stream()
+                .mapToLong(SubscriptionHolder::getDroppedEvents)
+                .sum();
+    }
+
+    /**
+     * @return Number of events replaced by a later event for the same entity for all current subscribers.
+     */
+    public long getCoalescedEvents() {
+        return matcher.getAllSubscriptions().stream()
+                .mapToLong(SubscriptionHolder::getCoalescedEvents)
+                .sum();
+    }
+
     /**
      * Event processing task which is submit to a {@link ExecutorService} for processing.
      *
@@ -154,14 +192,35 @@ public class EventPublisher implements Flow.Publisher<Map<String, Object>> {
 
         @Override
         public Void call() {
-            Subscriber<Map<String, Object>> subscriber = this.holder.getSubscriber();
-            JsonRpcEvent event;
-            while ((event = this.holder.canProcessMore()) != null) {
-                handleEvent(subscriber, event);
-            }
+            do {
+                try {
+                    drain();
+                } finally {
+                    this.holder.unschedule();
+                }
+                // work added after the drain and before unscheduling would not be submitted by anyone else
+            } while (this.holder.hasPendingWork() && this.holder.schedule());
             return null;
         }
 
+        private void drain() {
+            EventSubscriber subscriber = this.holder.getSubscriber();
+            if (this.holder.clearOverflow()) {
+                subscriber.onError(new ClientConnectionException("Event queue of subscription '"
+                        + this.holder.getId() + "' is full, events were dropped"));
+            }
+            int batchSize = Math.max(subscriber.getBatchSize(), 1);
+            List<JsonRpcEvent> events = new ArrayList<>(batchSize);
+            while (this.holder.drain(batchSize, events) > 0) {
+                if (batchSize == 1) {
+                    handleEvent(subscriber, events.get(0));
+                } else {
+                    handleBatch(subscriber, events);
+                }
+                events.clear();
+            }
+        }
+
         private void handleEvent(Subscriber<Map<String, Object>> subscriber, JsonRpcEvent event) {
             try {
                 Map<String, Object> map = this.decomposer.decompose(event);
@@ -171,12 +230,50 @@ public class EventPublisher implements Flow.Publisher<Map<String, Object>> {
                     subscriber.onNext(map);
                 }
             } catch (Throwable t) {
-                log.error("Error processing event '{}' for subscriber '{}' : {}.",
-                        event.toString(),
-                        subscriber.getClass().getCanonicalName(),
-                        ExceptionUtils.getRootCauseMessage(t));
-                log.debug("Exception", t);
+                logError(event.toString(), subscriber, t);
+            }
+        }
+
+        /**
+         * Delivers decomposed events in one call. Errors are reported in order so the events before an error are
+         * delivered first.
+         */
+        private void handleBatch(EventSubscriber subscriber, List<JsonRpcEvent> events) {
+            List<Map<String, Object>> batch = new ArrayList<>(events.size());
+            for (JsonRpcEvent event : events) {
+                try {
+                    Map<String, Object> map = this.decomposer.decompose(event);
+                    if (map.containsKey(JsonRpcEvent.ERROR_KEY)) {
+                        deliverBatch(subscriber, batch);
+                        subscriber.onError(new ClientConnectionException((String) map.get(JsonRpcEvent.ERROR_KEY)));
+                    } else {
+                        batch.add(map);
+                    }
+                } catch (Throwable t) {
+                    logError(event.toString(), subscriber, t);
+                }
+            }
+            deliverBatch(subscriber, batch);
+        }
+
+        private void deliverBatch(EventSubscriber subscriber, List<Map<String, Object>> batch) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                subscriber.onNextBatch(new ArrayList<>(batch));
+            } catch (Throwable t) {
+                logError("batch of " + batch.size() + " events", subscriber, t);
             }
+            batch.clear();
+        }
+
+        private void logError(String event, Subscriber<Map<String, Object>> subscriber, Throwable t) {
+            log.error("Error processing event '{}' for subscriber '{}' : {}.",
+                    event,
+                    subscriber.getClass().getCanonicalName(),
+                    ExceptionUtils.getRootCauseMessage(t));
+            log.debug("Exception", t);
         }
     }
 
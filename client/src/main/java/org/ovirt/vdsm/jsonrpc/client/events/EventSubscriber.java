@@ -1,5 +1,6 @@
 package org.ovirt.vdsm.jsonrpc.client.events;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Flow;
 import java.util.concurrent.Flow.Subscription;
@@ -12,12 +13,25 @@ import java.util.concurrent.Flow.Subscription;
 public abstract class EventSubscriber implements Flow.Subscriber<Map<String, Object>> {
 
     private String subscriptionId;
+    private int queueCapacity;
+    private OverflowPolicy overflowPolicy;
 
     /**
      * @param subscriptionId subscription id which is used to match an event to subscription.
      */
     public EventSubscriber(String subscriptionId) {
+        this(subscriptionId, 0, OverflowPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * @param subscriptionId subscription id which is used to match an event to subscription.
+     * @param queueCapacity maximum number of events queued for this subscriber, not positive for no limit.
+     * @param overflowPolicy defines which event is dropped when the queue is full.
+     */
+    public EventSubscriber(String subscriptionId, int queueCapacity, OverflowPolicy overflowPolicy) {
         this.subscriptionId = subscriptionId;
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
     }
 
     /*
@@ -49,10 +63,64 @@ public abstract class EventSubscriber implements Flow.Subscriber<Map<String, Obj
      */
     public abstract void onComplete();
 
+    /**
+     * Receives up to {@link #getBatchSize()} events in one call. Each event counts against the requested demand. The
+     * default implementation calls {@link #onNext(Map)} for each event.
+     *
+     * @param batch events in arrival order.
+     */
+    public void onNextBatch(List<Map<String, Object>> batch) {
+        for (Map<String, Object> map : batch) {
+            onNext(map);
+        }
+    }
+
+    /**
+     * Subscribers which prefer to process several events at once can override this method together with
+     * {@link #onNextBatch(List)}.
+     *
+     * @return maximum number of events delivered in one call, events are delivered one by one when not greater than 1.
+     */
+    public int getBatchSize() {
+        return 1;
+    }
+
     /**
      * @return subscription id which is used to match incoming events.
      */
     public String getSubscriptionId() {
         return this.subscriptionId;
     }
+
+    /**
+     * @return maximum number of events queued for this subscriber, not positive for no limit.
+     */
+    public int getQueueCapacity() {
+        return this.queueCapacity;
+    }
+
+    /**
+     * @return policy applied when the queue of this subscriber is full.
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return this.overflowPolicy;
+    }
+
+    /**
+     * Subscribers interested only in the latest state of an entity can override this method. Pending events with the
+     * same key are then replaced by the latest one, so a single event per key is delivered.
+     *
+     * @return <code>true</code> if pending events should be coalesced.
+     */
+    public boolean isCoalescing() {
+        return false;
+    }
+
+    /**
+     * @return name of the params field used as the coalescing key or <code>null</code> to use the unique id of the
+     *         event.
+     */
+    public String getCoalescingField() {
+        return null;
+    }
 }
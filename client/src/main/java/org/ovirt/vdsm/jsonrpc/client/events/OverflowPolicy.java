@@ -0,0 +1,24 @@
+package org.ovirt.vdsm.jsonrpc.client.events;
+
+/**
+ * Defines what happens to an event which arrives when the queue of a subscription is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * The oldest queued event is dropped to make room.
+     */
+    DROP_OLDEST,
+    /**
+     * The arriving event is dropped.
+     */
+    DROP_NEWEST,
+    /**
+     * A queued event with the same unique id is replaced by the arriving one so only the latest state is kept. The
+     * oldest event is dropped when there is no such event.
+     */
+    COALESCE,
+    /**
+     * The arriving event is dropped and the subscriber is notified by <code>onError</code>.
+     */
+    ERROR
+}
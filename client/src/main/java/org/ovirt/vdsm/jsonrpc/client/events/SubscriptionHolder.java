@@ -5,17 +5,23 @@ import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.parse;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.LongUnaryOperator;
 import java.util.stream.Collectors;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.ovirt.vdsm.jsonrpc.client.JsonRpcEvent;
+import org.ovirt.vdsm.jsonrpc.client.utils.JsonFragment;
 import org.ovirt.vdsm.jsonrpc.client.utils.LockWrapper;
 
 /**
@@ -30,12 +36,31 @@ public class SubscriptionHolder {
         }
         return 0;
     };
+    private static final ObjectMapper MAPPER = new ObjectMapper();
     private final EventSubscriber subscriber;
-    private final Deque<JsonRpcEvent> events;
+    /**
+     * Queued events in arrival order. Coalescing subscriptions key them by entity, others by a sequence number.
+     */
+    private final LinkedHashMap<Object, JsonRpcEvent> events;
+    /**
+     * Sequence number of the latest queued event of each entity, used by {@link OverflowPolicy#COALESCE} when the
+     * subscription is not coalescing. Entries of events which were already taken are pruned lazily.
+     */
+    private final Map<String, Object> entities;
+    private long sequence;
     private final AtomicLong count;
     private final String[] parsedId;
     private List<String> filteredId;
     private final Lock lock;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final boolean coalescing;
+    private final String coalescingField;
+    private volatile int size;
 
     /**
      * Creates a holder which subscriber instance and count and it prepares subscription id representation for event
@@ -47,9 +72,17 @@ public class SubscriptionHolder {
     public SubscriptionHolder(EventSubscriber subscriber) {
         this.subscriber = subscriber;
         this.count = new AtomicLong();;
-        this.events = new ConcurrentLinkedDeque<>();
+        this.events = new LinkedHashMap<>();
         this.parsedId = parse(getId());
         this.lock = new ReentrantLock();
+        int capacity = subscriber.getQueueCapacity();
+        this.capacity = capacity > 0 ? capacity : Integer.MAX_VALUE;
+        OverflowPolicy policy = subscriber.getOverflowPolicy();
+        this.overflowPolicy = policy != null ? policy : OverflowPolicy.DROP_OLDEST;
+        this.coalescing = subscriber.isCoalescing();
+        this.coalescingField = subscriber.getCoalescingField();
+        this.entities = !this.coalescing && this.overflowPolicy == OverflowPolicy.COALESCE
+                && this.capacity != Integer.MAX_VALUE ? new HashMap<>() : null;
         filter();
     }
 
@@ -95,35 +128,189 @@ public class SubscriptionHolder {
     public JsonRpcEvent canProcessMore() {
         try (LockWrapper ignored = new LockWrapper(this.lock)) {
             if (!this.events.isEmpty() && this.count.getAndUpdate(DECREMENT_ONLY_POSITIVE) > 0) {
-                return this.events.removeLast();
+                return removeOldest();
             }
             return null;
         }
     }
 
+    /**
+     * @return <code>true</code> if there are events the subscriber requested or an overflow to report.
+     */
+    public boolean hasPendingWork() {
+        return (this.size > 0 && canProcess()) || isOverflowed();
+    }
+
+    /**
+     * Marks the holder as scheduled for processing.
+     *
+     * @return <code>false</code> if it is already scheduled and a new task must not be submitted.
+     */
+    public boolean schedule() {
+        return this.scheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * Marks the end of processing so the holder can be scheduled again.
+     */
+    public void unschedule() {
+        this.scheduled.set(false);
+    }
+
+    /**
+     * Moves queued events to a batch in one step, taking no more events than the subscriber requested.
+     *
+     * @param max
+     *            Maximum number of events to take.
+     * @param batch
+     *            List to which the events are added in arrival order.
+     * @return Number of events added to the batch.
+     */
+    public int drain(int max, List<JsonRpcEvent> batch) {
+        try (LockWrapper ignored = new LockWrapper(this.lock)) {
+            int available = Math.min(max, this.events.size());
+            if (available == 0) {
+                return 0;
+            }
+            long granted = this.count.getAndUpdate(current -> current - Math.min(current, available));
+            int taken = (int) Math.min(granted, available);
+            for (int i = 0; i < taken; i++) {
+                batch.add(removeOldest());
+            }
+            return taken;
+        }
+    }
+
     /**
      * Queues not processed event for later processing. When adding an event to the queue, set the arrival time of the
-     * event.
+     * event. When the queue is full the {@link OverflowPolicy} of the subscriber decides which event is dropped.
+     * A coalescing subscription replaces a pending event with the same key and moves it to the end of the queue so the
+     * queue stays ordered by arrival time.
      *
      * @param event
      *            An event to be queued.
      */
     public void putEvent(JsonRpcEvent event) {
+        String entity = this.coalescing || this.entities != null ? coalescingKey(event) : null;
         try (LockWrapper ignored = new LockWrapper(this.lock)) {
             event.setArrivalTime(System.nanoTime());
-            this.events.addFirst(event);
+            Object key = this.coalescing ? entity : this.sequence++;
+            if (this.coalescing && this.events.remove(key) != null) {
+                this.events.put(key, event);
+                this.coalesced.incrementAndGet();
+                return;
+            }
+            if (this.events.size() >= this.capacity) {
+                overflow(key, entity, event);
+                return;
+            }
+            add(key, entity, event);
+        }
+    }
+
+    private void overflow(Object key, String entity, JsonRpcEvent event) {
+        this.dropped.incrementAndGet();
+        switch (this.overflowPolicy) {
+        case DROP_NEWEST:
+            return;
+        case ERROR:
+            this.overflowed.set(true);
+            return;
+        case COALESCE:
+            // a coalescing subscription already replaced a queued event of the same entity
+            if (this.entities != null) {
+                Object previous = this.entities.get(entity);
+                if (previous != null && this.events.remove(previous) != null) {
+                    add(key, entity, event);
+                    return;
+                }
+            }
+            removeOldest();
+            add(key, entity, event);
+            return;
+        case DROP_OLDEST:
+        default:
+            removeOldest();
+            add(key, entity, event);
+        }
+    }
+
+    private void add(Object key, String entity, JsonRpcEvent event) {
+        this.events.put(key, event);
+        this.size = this.events.size();
+        if (this.entities != null) {
+            this.entities.put(entity, key);
+            if (this.entities.size() / 2 > this.capacity) {
+                this.entities.values().removeIf(queued -> !this.events.containsKey(queued));
+            }
         }
     }
 
-    /*
-     * (non-Javadoc)
+    private JsonRpcEvent removeOldest() {
+        Iterator<JsonRpcEvent> iterator = this.events.values().iterator();
+        JsonRpcEvent event = iterator.next();
+        iterator.remove();
+        this.size = this.events.size();
+        return event;
+    }
+
+    /**
+     * Events are coalesced by the configured params field, by unique id or by the whole id when they do not have one.
+     * The field is looked up in not parsed params so they are parsed only when the subscriber reads them.
+     */
+    private String coalescingKey(JsonRpcEvent event) {
+        if (this.coalescingField != null) {
+            JsonFragment raw = event.getRawParams();
+            String value = raw != null ? raw.findScalar(MAPPER, this.coalescingField) : fieldValue(event.getParams());
+            if (value != null) {
+                return value;
+            }
+        }
+        String method = event.getMethod();
+        String uid = method.substring(method.lastIndexOf('|') + 1);
+        return ALL.equals(uid) ? method : uid;
+    }
+
+    private String fieldValue(JsonNode params) {
+        JsonNode value = params != null ? params.get(this.coalescingField) : null;
+        return value != null && value.isValueNode() ? value.asText() : null;
+    }
+
+    /**
+     * Clears the overflow state of a subscriber using {@link OverflowPolicy#ERROR}.
      *
-     * Used by test case to count number of events
+     * @return <code>true</code> if events were dropped since the previous call.
+     */
+    public boolean clearOverflow() {
+        return this.overflowed.getAndSet(false);
+    }
+
+    /**
+     * @return <code>true</code> if events were dropped and the subscriber was not notified yet.
+     */
+    public boolean isOverflowed() {
+        return this.overflowed.get();
+    }
+
+    /**
+     * @return Number of queued events.
      */
     public int getNumberOfEvents() {
-        try (LockWrapper ignored = new LockWrapper(this.lock)) {
-            return this.events.size();
-        }
+        return this.size;
+    }
+
+    /**
+     * @return Number of events which were dropped because the queue was full or they were not consumed in time.
+     */
+    public long getDroppedEvents() {
+        return this.dropped.get();
+    }
+
+    /**
+     * @return Number of pending events which were replaced by a later event with the same key.
+     */
+    public long getCoalescedEvents() {
+        return this.coalesced.get();
     }
 
     /**
@@ -133,11 +320,16 @@ public class SubscriptionHolder {
     public void purgeOldEventsIfNotConsumed(int eventTimeoutInHours) {
         try (LockWrapper ignored = new LockWrapper(this.lock)) {
             long threshold = System.nanoTime() - TimeUnit.HOURS.toNanos(eventTimeoutInHours);
-            // remove the last element if the element was created before threshold
-            while (!this.events.isEmpty() && this.events.peekLast().getArrivalTime() < threshold) {
+            // remove the oldest element if the element was created before threshold
+            for (Iterator<JsonRpcEvent> iterator = this.events.values().iterator(); iterator.hasNext();) {
+                if (iterator.next().getArrivalTime() >= threshold) {
+                    break;
+                }
                 // if the event is older than PURGE_TIME we remove the event
-                this.events.removeLast();
+                iterator.remove();
+                this.dropped.incrementAndGet();
             }
+            this.size = this.events.size();
         }
     }
 
@@ -154,6 +346,10 @@ public class SubscriptionHolder {
     public void clean() {
         try (LockWrapper ignored = new LockWrapper(this.lock)) {
             this.events.clear();
+            this.size = 0;
+            if (this.entities != null) {
+                this.entities.clear();
+            }
         }
     }
 
@@ -6,13 +6,13 @@ import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.isEmpty;
 import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.parse;
 
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
 
 import org.ovirt.vdsm.jsonrpc.client.JsonRpcEvent;
 
@@ -34,17 +34,40 @@ import org.ovirt.vdsm.jsonrpc.client.JsonRpcEvent;
  *
  *  User can register for specific component operation using '*|storage|*|*' which
  *  means that all events triggered by storage component are delivered to a subscriber.
+ *
+ *  Subscriptions are compiled when added and indexed by each of their segments. Matching
+ *  looks up the segments of an event in place so no memory is allocated per event.
  */
 public class SubscriptionMatcher {
 
-    private ConcurrentMap<String, List<SubscriptionHolder>> receiver = new ConcurrentHashMap<>();
-    private ConcurrentMap<String, List<SubscriptionHolder>> component = new ConcurrentHashMap<>();
-    private ConcurrentMap<String, List<SubscriptionHolder>> operation = new ConcurrentHashMap<>();
-    private ConcurrentMap<String, SubscriptionHolder> unique_id = new ConcurrentHashMap<>();
+    private static final int SEGMENTS = 4;
+    private static final int UNIQUE_ID = 3;
+    private static final Subscription[] NONE = new Subscription[0];
+
+    /**
+     * Segments of the event being matched, reused by each thread.
+     */
+    private static final ThreadLocal<Segment[]> PROBES = ThreadLocal.withInitial(() -> {
+        Segment[] probes = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            probes[i] = new Segment();
+        }
+        return probes;
+    });
+
+    /**
+     * Subscriptions with a unique id are indexed at position 3 only. Others are indexed
+     * at each of their receiver (0), component (1) and operation (2) positions.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private final ConcurrentMap<Segment, Subscription[]>[] index = new ConcurrentMap[SEGMENTS];
+    private final ConcurrentMap<SubscriptionHolder, Subscription> subscriptions = new ConcurrentHashMap<>();
     private List<SubscriptionHolder> allSubscriptions = new CopyOnWriteArrayList<>();
 
-    private interface Predicate {
-        boolean apply(int one, int two);
+    public SubscriptionMatcher() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            this.index[i] = new ConcurrentHashMap<>();
+        }
     }
 
     /**
@@ -52,45 +75,23 @@ public class SubscriptionMatcher {
      *
      * @param holder Instance holding subscription information.
      */
-    public void add(SubscriptionHolder holder) {
+    public synchronized void add(SubscriptionHolder holder) {
         if (SUBSCRIPTION_ALL.equals(holder.getId())) {
             throw new IllegalArgumentException("Can't subscribe to all events");
         }
-        String[] ids = parse(holder.getId());
-        try {
-            String uid = ids[3];
-            if (!ALL.equals(uid)) {
-                validateKey(uid);
-                this.unique_id.put(uid, holder);
-            } else {
-                String opKey = ids[2];
-                if (!ALL.equals(opKey)) {
-                    update(this.operation, opKey, holder);
-                }
-                String compKey = ids[1];
-                if (!ALL.equals(compKey)) {
-                    update(this.component, compKey, holder);
-                }
-                String rKey = ids[0];
-                if (!ALL.equals(rKey)) {
-                    update(this.receiver, rKey, holder);
-                }
-            }
-            allSubscriptions.add(holder);
-        } catch (IllegalArgumentException e) {
-            remove(holder);
-            throw e;
+        Subscription subscription = new Subscription(holder, parse(holder.getId()));
+        for (int position : subscription.positions) {
+            validateKey(subscription.ids[position]);
         }
-    }
-
-    private void update(ConcurrentMap<String, List<SubscriptionHolder>> map, String key, SubscriptionHolder holder) {
-        validateKey(key);
-        List<SubscriptionHolder> holders = new CopyOnWriteArrayList<>();
-        holders.add(holder);
-        holders = map.putIfAbsent(key, holders);
-        if (holders != null) {
-            holders.add(holder);
+        for (int position : subscription.positions) {
+            Segment key = new Segment(subscription.ids[position]);
+            Subscription[] current = this.index[position].getOrDefault(key, NONE);
+            Subscription[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = subscription;
+            this.index[position].put(key, updated);
         }
+        this.subscriptions.put(holder, subscription);
+        allSubscriptions.add(holder);
     }
 
     private void validateKey(String key) {
@@ -107,35 +108,73 @@ public class SubscriptionMatcher {
      * @return A {@link Set} with matched subscriptions.
      */
     public Set<SubscriptionHolder> match(JsonRpcEvent event) {
-        String[] ids = parse(event.getMethod());
-        Set<SubscriptionHolder> subscriptions = new HashSet<>();
-        SubscriptionHolder holder = this.unique_id.get(ids[3]);
-        if (holder != null) {
-            subscriptions.add(holder);
-        }
-        Predicate equalsPredicate = (one, two) -> one == two;
-        addHolders(subscriptions, this.operation, 2, ids, equalsPredicate);
-        addHolders(subscriptions, this.component, 1, ids, equalsPredicate);
-        addHolders(subscriptions, this.receiver, 0, ids, equalsPredicate);
-        return subscriptions;
+        Set<SubscriptionHolder> holders = new HashSet<>();
+        match(event, (holder, e) -> holders.add(holder));
+        return holders;
+    }
+
+    /**
+     * Matches current subscriptions to an event and passes each matching subscription
+     * exactly once to the <code>action</code> together with the event.
+     *
+     * @param event Incoming event used to match subscribers.
+     * @param action Called for each matched subscription.
+     */
+    public void match(JsonRpcEvent event, BiConsumer<SubscriptionHolder, JsonRpcEvent> action) {
+        Segment[] probes = PROBES.get();
+        try {
+            split(event.getMethod(), probes);
+            for (Subscription subscription : lookup(UNIQUE_ID, probes)) {
+                action.accept(subscription.holder, event);
+            }
+            int wildcards = 0;
+            for (int i = 0; i < UNIQUE_ID; i++) {
+                if (probes[i].isAll()) {
+                    wildcards++;
+                }
+            }
+            for (int i = UNIQUE_ID - 1; i >= 0; i--) {
+                for (Subscription subscription : lookup(i, probes)) {
+                    // an event carrying only one segment is delivered to everyone subscribed to it
+                    if (wildcards == 2 && probes[UNIQUE_ID].isAll()
+                            || subscription.positions[0] == i && subscription.matches(probes)) {
+                        action.accept(subscription.holder, event);
+                    }
+                }
+            }
+        } finally {
+            for (Segment probe : probes) {
+                probe.clear();
+            }
+        }
     }
 
-    private void addHolders(Set<SubscriptionHolder> holders,
-            ConcurrentMap<String, List<SubscriptionHolder>> map,
-            int key, String[] ids, Predicate predicate) {
-        List<SubscriptionHolder> values = map.get(ids[key]);
-        if (values == null) {
-            return;
-        }
-        values.stream()
-                .filter(value -> {
-                    List<String> fids = value.getFilteredId();
-                    int size = fids.size();
-                    fids.retainAll(Arrays.asList(ids));
-                    int count = Collections.frequency(Arrays.asList(ids), ALL);
-                    return predicate.apply(size, fids.size()) || count == 3;
-                })
-                .forEach(holders::add);
+    private Subscription[] lookup(int position, Segment[] probes) {
+        Segment probe = probes[position];
+        if (probe.isAll()) {
+            return NONE;
+        }
+        return this.index[position].getOrDefault(probe, NONE);
+    }
+
+    /**
+     * Splits an event id into segments without copying it. Follows {@link String#split(String)}
+     * in dropping trailing empty segments, so these make the id invalid.
+     */
+    private static void split(String id, Segment[] probes) {
+        int start = 0;
+        for (int i = 0; i < UNIQUE_ID; i++) {
+            int end = id.indexOf('|', start);
+            if (end < 0) {
+                throw new IllegalArgumentException("wrong id format");
+            }
+            probes[i].set(id, start, end);
+            start = end + 1;
+        }
+        if (start == id.length() || id.indexOf('|', start) >= 0) {
+            throw new IllegalArgumentException("wrong id format");
+        }
+        probes[UNIQUE_ID].set(id, start, id.length());
     }
 
     /**
@@ -143,28 +182,127 @@ public class SubscriptionMatcher {
      *
      * @param holder Object holding information about subscription being removed.
      */
-    public void remove(SubscriptionHolder holder) {
-        String[] ids = holder.getParsedId();
-        String uid = ids[3];
-        this.unique_id.remove(uid);
-        clean(this.operation, ids[2], holder);
-        clean(this.component, ids[1], holder);
-        clean(this.receiver, ids[0], holder);
+    public synchronized void remove(SubscriptionHolder holder) {
+        Subscription subscription = this.subscriptions.remove(holder);
+        if (subscription != null) {
+            for (int position : subscription.positions) {
+                Segment key = new Segment(subscription.ids[position]);
+                Subscription[] current = this.index[position].getOrDefault(key, NONE);
+                Subscription[] updated = Arrays.stream(current)
+                        .filter(value -> value != subscription)
+                        .toArray(Subscription[]::new);
+                if (updated.length == 0) {
+                    this.index[position].remove(key);
+                } else {
+                    this.index[position].put(key, updated);
+                }
+            }
+        }
         allSubscriptions.remove(holder);
     }
 
-    private void clean(ConcurrentMap<String, List<SubscriptionHolder>> map, String key, SubscriptionHolder holder) {
-        List<SubscriptionHolder> holders = map.get(key);
-        if (holders != null) {
-            if (holders.size() > 1) {
-                holders.remove(holder);
+    public List<SubscriptionHolder> getAllSubscriptions() {
+        return allSubscriptions;
+    }
+
+    /**
+     * Subscription id compiled for matching.
+     */
+    private static class Subscription {
+        private final SubscriptionHolder holder;
+        private final String[] ids;
+        /**
+         * Positions at which the subscription is indexed, the most specific one first.
+         */
+        private final int[] positions;
+
+        Subscription(SubscriptionHolder holder, String[] ids) {
+            this.holder = holder;
+            this.ids = ids;
+            if (!ALL.equals(ids[UNIQUE_ID])) {
+                this.positions = new int[] { UNIQUE_ID };
             } else {
-                map.remove(key);
+                int[] positions = new int[UNIQUE_ID];
+                int count = 0;
+                for (int i = UNIQUE_ID - 1; i >= 0; i--) {
+                    if (!ALL.equals(ids[i])) {
+                        positions[count++] = i;
+                    }
+                }
+                this.positions = Arrays.copyOf(positions, count);
             }
         }
+
+        boolean matches(Segment[] probes) {
+            for (int position : this.positions) {
+                if (!probes[position].matches(this.ids[position])) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
 
-    public List<SubscriptionHolder> getAllSubscriptions() {
-        return allSubscriptions;
+    /**
+     * Part of a string used as an index key without copying it.
+     */
+    private static final class Segment {
+        private String source;
+        private int start;
+        private int end;
+        private int hash;
+
+        Segment() {
+        }
+
+        Segment(String value) {
+            set(value, 0, value.length());
+        }
+
+        void set(String source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + source.charAt(i);
+            }
+            this.hash = hash;
+        }
+
+        void clear() {
+            this.source = null;
+        }
+
+        boolean isAll() {
+            return this.end - this.start == 1 && this.source.charAt(this.start) == '*';
+        }
+
+        boolean matches(String value) {
+            int length = this.end - this.start;
+            return value.length() == length && this.source.regionMatches(this.start, value, 0, length);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Segment)) {
+                return false;
+            }
+            Segment other = (Segment) obj;
+            return this.hash == other.hash && other.matches(this.source, this.start, this.end);
+        }
+
+        private boolean matches(String source, int start, int end) {
+            int length = end - start;
+            return this.end - this.start == length && this.source.regionMatches(this.start, source, start, length);
+        }
     }
 }
@@ -0,0 +1,49 @@
+package org.ovirt.vdsm.jsonrpc.client.internal;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.ovirt.vdsm.jsonrpc.client.BrokerCommandCallback;
+import org.ovirt.vdsm.jsonrpc.client.JsonRpcRequest;
+import org.ovirt.vdsm.jsonrpc.client.JsonRpcResponse;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * <code>AsyncCall</code> holds single response and completes when it arrives. Dependent stages which are not
+ * async run in the thread processing responses so they should not block.
+ *
+ * Cancelling the call stops tracking of the request.
+ */
+public class AsyncCall extends CompletableFuture<JsonRpcResponse> implements JsonRpcCall {
+
+    private final JsonNode id;
+    private final ResponseTracker tracker;
+
+    public AsyncCall(JsonRpcRequest req, ResponseTracker tracker) {
+        this.id = req.getId();
+        this.tracker = tracker;
+    }
+
+    @Override
+    public void addResponse(JsonRpcResponse response) {
+        complete(response);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            this.tracker.removeCall(this.id);
+        }
+        return cancelled;
+    }
+
+    public JsonNode getId() {
+        return this.id;
+    }
+
+    @Override
+    public BrokerCommandCallback getCallback() {
+        return null;
+    }
+}
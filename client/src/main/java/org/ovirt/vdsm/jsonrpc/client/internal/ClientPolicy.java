@@ -11,6 +11,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
  *
  */
 public class ClientPolicy {
+    public static final int DEFAULT_OUTGOING_BYTES_PER_PASS = 256 * 1024;
     private final int retryTimeOut;
     private final int retryNumber;
     private final List<Class<? extends Exception>> exceptions;
@@ -18,6 +19,10 @@ public class ClientPolicy {
     private final AtomicBoolean isOutgoingHeartbeat;
     private volatile int incomingHeartbeat;
     private volatile int outgoingHeartbeat;
+    private volatile int outgoingBytesPerPass = DEFAULT_OUTGOING_BYTES_PER_PASS;
+    private volatile long outboxBytes;
+    private volatile int outboxFrames;
+    private volatile int outboxTimeout;
 
     private TimeUnit timeUnit = TimeUnit.MILLISECONDS;
     private String identifier;
@@ -145,9 +150,69 @@ public class ClientPolicy {
         this.isOutgoingHeartbeat.set(isHeartbeat && this.outgoingHeartbeat != 0);
     }
 
+    public int getOutgoingBytesPerPass() {
+        return this.outgoingBytesPerPass;
+    }
+
+    /**
+     * Limits number of bytes written to a single connection each time the reactor processes it so a connection
+     * with many queued messages does not delay other connections handled by the same reactor.
+     *
+     * @param outgoingBytesPerPass - <code>Integer</code> value which defines number of bytes.
+     */
+    public void setOutgoingBytesPerPass(int outgoingBytesPerPass) {
+        if (outgoingBytesPerPass <= 0) {
+            throw new IllegalArgumentException("Number of bytes needs to be positive");
+        }
+        this.outgoingBytesPerPass = outgoingBytesPerPass;
+    }
+
+    public long getOutboxBytes() {
+        return this.outboxBytes;
+    }
+
+    public int getOutboxFrames() {
+        return this.outboxFrames;
+    }
+
+    /**
+     * Limits size of frames queued for a single connection. Once either limit is reached the connection is not
+     * writable and requests wait for it to drain to half of the limits.
+     *
+     * @param outboxBytes - <code>Long</code> value which defines number of bytes, 0 means no limit.
+     * @param outboxFrames - <code>Integer</code> value which defines number of frames, 0 means no limit.
+     */
+    public void setOutboxLimits(long outboxBytes, int outboxFrames) {
+        if (outboxBytes < 0 || outboxFrames < 0) {
+            throw new IllegalArgumentException("Outbox limits can't be negative");
+        }
+        this.outboxBytes = outboxBytes;
+        this.outboxFrames = outboxFrames;
+    }
+
+    public int getOutboxTimeout() {
+        return this.outboxTimeout;
+    }
+
+    /**
+     * Sets how long a request waits for a connection which is not writable before it is rejected.
+     *
+     * @param outboxTimeout - <code>Integer</code> value in milliseconds, 0 rejects requests immediately.
+     */
+    public void setOutboxTimeout(int outboxTimeout) {
+        if (outboxTimeout < 0) {
+            throw new IllegalArgumentException("Outbox timeout can't be negative");
+        }
+        this.outboxTimeout = outboxTimeout;
+    }
+
     @Override
     public ClientPolicy clone() {
-        return new ClientPolicy(this.retryTimeOut, this.retryNumber, this.incomingHeartbeat, this.outgoingHeartbeat,
-                this.exceptions);
+        ClientPolicy policy = new ClientPolicy(this.retryTimeOut, this.retryNumber, this.incomingHeartbeat,
+                this.outgoingHeartbeat, this.exceptions);
+        policy.setOutgoingBytesPerPass(this.outgoingBytesPerPass);
+        policy.setOutboxLimits(this.outboxBytes, this.outboxFrames);
+        policy.setOutboxTimeout(this.outboxTimeout);
+        return policy;
     }
 }
@@ -1,5 +1,7 @@
 package org.ovirt.vdsm.jsonrpc.client.internal;
 
+import java.nio.ByteBuffer;
+
 import org.ovirt.vdsm.jsonrpc.client.JsonRpcClient;
 
 /**
@@ -8,18 +10,34 @@ import org.ovirt.vdsm.jsonrpc.client.JsonRpcClient;
  */
 public class MessageContext {
     private JsonRpcClient client;
-    private byte[] message;
+    private ByteBuffer message;
+    private Runnable release;
 
     public MessageContext(JsonRpcClient client, byte[] message) {
+        this(client, message != null ? ByteBuffer.wrap(message) : null, () -> {
+        });
+    }
+
+    /**
+     * @param client - Client which received the message.
+     * @param message - View of the message which is not modified.
+     * @param release - Run once the message is processed.
+     */
+    public MessageContext(JsonRpcClient client, ByteBuffer message, Runnable release) {
         this.client = client;
         this.message = message;
+        this.release = release;
     }
 
     public JsonRpcClient getClient() {
         return client;
     }
 
-    public byte[] getMessage() {
+    public ByteBuffer getMessage() {
         return message;
     }
+
+    public void release() {
+        this.release.run();
+    }
 }
@@ -0,0 +1,201 @@
+package org.ovirt.vdsm.jsonrpc.client.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ovirt.vdsm.jsonrpc.client.utils.JsonFragment;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+/**
+ * Top level fields of received json-rpc message.
+ *
+ * The message is read by a streaming parser which only builds nodes for small routing fields like <code>id</code>,
+ * <code>error</code> and <code>method</code>. Structured <code>result</code> and <code>params</code> are skipped and
+ * kept as {@link JsonFragment}s which are parsed only when needed.
+ *
+ * Fragments are located by byte offsets which are only reported by the byte based parser so field names need to be
+ * canonicalized. The canonicalizer stops sharing its symbols once they exceed its reuse limit so names which are
+ * unique per message do not grow it without a bound.
+ *
+ * Messages received in buffers without an accessible array, such as direct or read only buffers, are parsed through
+ * a stream over the buffer and their fragments refer to the buffer so the message is not copied into an array.
+ *
+ */
+public final class MessageEnvelope {
+    private static final JsonFactory FACTORY = new JsonFactoryBuilder()
+            .configure(JsonFactory.Feature.INTERN_FIELD_NAMES, false)
+            .build();
+    private static final String JSONRPC = "jsonrpc";
+    private static final String ID = "id";
+    private static final String ERROR = "error";
+    private static final String METHOD = "method";
+    private static final String RESULT = "result";
+    private static final String PARAMS = "params";
+
+    private JsonNode jsonrpc;
+    private JsonNode id;
+    private JsonNode error;
+    private JsonNode method;
+    private JsonNode result;
+    private JsonFragment rawResult;
+    private JsonNode params;
+    private JsonFragment rawParams;
+
+    /**
+     * Reads envelopes of all the json-rpc objects contained in a message which can be a single object or a batch.
+     *
+     * @param mapper - Mapper used to build nodes of routing fields.
+     * @param message - Received message which is referenced by created fragments.
+     * @return Envelopes in the order they were received.
+     * @throws IOException when the message is not valid json.
+     */
+    public static List<MessageEnvelope> parse(ObjectMapper mapper, byte[] message) throws IOException {
+        return parse(mapper, ByteBuffer.wrap(message));
+    }
+
+    /**
+     * Reads envelopes of all the json-rpc objects contained in a message which can be a single object or a batch.
+     *
+     * @param mapper - Mapper used to build nodes of routing fields.
+     * @param buffer - Received message between position and limit of the buffer which is referenced by created
+     *            fragments.
+     * @return Envelopes in the order they were received.
+     * @throws IOException when the message is not valid json.
+     */
+    public static List<MessageEnvelope> parse(ObjectMapper mapper, ByteBuffer buffer) throws IOException {
+        List<MessageEnvelope> envelopes = new ArrayList<>(1);
+        ByteBuffer message = buffer.slice();
+        try (JsonParser parser = createParser(message)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                envelopes.add(read(mapper, parser, message));
+            } else if (token == JsonToken.START_ARRAY) {
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                    if (token == JsonToken.START_OBJECT) {
+                        envelopes.add(read(mapper, parser, message));
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                throw new JsonParseException(parser, "Json object or array expected");
+            }
+        }
+        return envelopes;
+    }
+
+    private static JsonParser createParser(ByteBuffer message) throws IOException {
+        if (message.hasArray()) {
+            return FACTORY.createParser(message.array(), message.arrayOffset() + message.position(),
+                    message.remaining());
+        }
+        return FACTORY.createParser(new ByteBufferBackedInputStream(message.duplicate()));
+    }
+
+    private static MessageEnvelope read(ObjectMapper mapper, JsonParser parser, ByteBuffer message)
+            throws IOException {
+        MessageEnvelope envelope = new MessageEnvelope();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (name) {
+            case JSONRPC:
+                envelope.jsonrpc = mapper.readTree(parser);
+                break;
+            case ID:
+                envelope.id = mapper.readTree(parser);
+                break;
+            case ERROR:
+                envelope.error = mapper.readTree(parser);
+                break;
+            case METHOD:
+                envelope.method = mapper.readTree(parser);
+                break;
+            case RESULT:
+                if (token.isStructStart()) {
+                    envelope.rawResult = fragment(parser, message);
+                    envelope.result = null;
+                } else {
+                    envelope.result = mapper.readTree(parser);
+                    envelope.rawResult = null;
+                }
+                break;
+            case PARAMS:
+                if (token.isStructStart()) {
+                    envelope.rawParams = fragment(parser, message);
+                    envelope.params = null;
+                } else {
+                    envelope.params = mapper.readTree(parser);
+                    envelope.rawParams = null;
+                }
+                break;
+            default:
+                parser.skipChildren();
+            }
+        }
+        return envelope;
+    }
+
+    private static JsonFragment fragment(JsonParser parser, ByteBuffer message) throws IOException {
+        int start = (int) parser.getTokenLocation().getByteOffset();
+        parser.skipChildren();
+        int end = (int) parser.getCurrentLocation().getByteOffset();
+        ByteBuffer fragment = message.duplicate();
+        fragment.limit(end).position(start);
+        return new JsonFragment(fragment);
+    }
+
+    public JsonNode getJsonrpc() {
+        return this.jsonrpc;
+    }
+
+    public JsonNode getId() {
+        return this.id;
+    }
+
+    public JsonNode getError() {
+        return this.error;
+    }
+
+    public JsonNode getMethod() {
+        return this.method;
+    }
+
+    /**
+     * @return Result if it is a json scalar or <code>null</code>.
+     */
+    public JsonNode getResult() {
+        return this.result;
+    }
+
+    /**
+     * @return Result if it is a json object or array or <code>null</code>.
+     */
+    public JsonFragment getRawResult() {
+        return this.rawResult;
+    }
+
+    /**
+     * @return Params if it is a json scalar or <code>null</code>.
+     */
+    public JsonNode getParams() {
+        return this.params;
+    }
+
+    /**
+     * @return Params if it is a json object or array or <code>null</code>.
+     */
+    public JsonFragment getRawParams() {
+        return this.rawParams;
+    }
+}
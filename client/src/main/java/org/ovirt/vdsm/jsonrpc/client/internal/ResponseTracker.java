@@ -7,18 +7,16 @@ import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.jsonToByteArray;
 import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.mapValues;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.ovirt.vdsm.jsonrpc.client.ClientConnectionException;
@@ -26,7 +24,6 @@ import org.ovirt.vdsm.jsonrpc.client.JsonRpcRequest;
 import org.ovirt.vdsm.jsonrpc.client.JsonRpcResponse;
 import org.ovirt.vdsm.jsonrpc.client.RequestAlreadySentException;
 import org.ovirt.vdsm.jsonrpc.client.reactors.ReactorClient;
-import org.ovirt.vdsm.jsonrpc.client.utils.LockWrapper;
 import org.ovirt.vdsm.jsonrpc.client.utils.ResponseTracking;
 import org.ovirt.vdsm.jsonrpc.client.utils.retry.RetryContext;
 import org.slf4j.Logger;
@@ -39,36 +36,63 @@ import com.fasterxml.jackson.databind.node.NullNode;
  * Response tracker thread is responsible for tracking and retrying requests. For each connection there is single
  * instance of the thread.
  *
+ * Response timeouts are kept in a {@link TimingWheel} so registering, removing and expiring a request takes constant
+ * time regardless of number of requests being tracked.
+ *
+ * No global lock is used. State of each request is kept in concurrent maps keyed by request id and requests are
+ * indexed per connection by concurrent sets so completing a request for one host does not block requests sent to
+ * other hosts.
+ *
  */
 public class ResponseTracker implements Runnable {
     private static final Logger log = LoggerFactory.getLogger(ResponseTracker.class);
-    private static final int TRACKING_TIMEOUT = 500;
+    private static final int TICK_DURATION = 10;
+    private static final int WHEEL_SIZE = 1024;
     private final AtomicBoolean isTracking;
     private final ConcurrentMap<JsonNode, JsonRpcCall> runningCalls;
-    private final ConcurrentMap<JsonNode, ResponseTracking> map;
-    private final ConcurrentMap<String, List<JsonNode>> hostToId;
-    private final Queue<JsonNode> queue;
-    private final Lock lock;
-    private ScheduledExecutorService executorService;
+    private final ConcurrentMap<JsonNode, Tracked> map;
+    private final ConcurrentMap<String, Set<JsonNode>> hostToId;
+    private final TimingWheel wheel;
+    private Executor callbackExecutor;
 
     public ResponseTracker() {
         this.isTracking = new AtomicBoolean(true);
         this.runningCalls = new ConcurrentHashMap<>();
         this.map = new ConcurrentHashMap<>();
         this.hostToId = new ConcurrentHashMap<>();
-        this.queue = new ConcurrentLinkedQueue<>();
-        this.lock = new ReentrantLock();
+        this.wheel = new TimingWheel(TICK_DURATION, WHEEL_SIZE, System.currentTimeMillis());
+    }
+
+    /**
+     * Tracking information together with currently scheduled timeout.
+     */
+    private static final class Tracked {
+        private final ResponseTracking tracking;
+        private volatile TimingWheel.Timeout timeout;
+
+        Tracked(ResponseTracking tracking) {
+            this.tracking = tracking;
+        }
+
+        void cancel() {
+            TimingWheel.Timeout timeout = this.timeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
     }
 
     private void removeRequestFromTracking(JsonNode id) {
-        try (LockWrapper ignored = new LockWrapper(this.lock)) {
-            this.queue.remove(id);
-            ResponseTracking tracking = this.map.remove(id);
-            if (tracking != null && tracking.getClient() != null) {
-                this.hostToId.computeIfPresent(tracking.getClient().getClientId(), (clientId, nodes) -> {
-                    nodes.remove(id);
-                    return nodes;
-                });
+        Tracked tracked = this.map.remove(id);
+        if (tracked == null) {
+            return;
+        }
+        tracked.cancel();
+        ResponseTracking tracking = tracked.tracking;
+        if (tracking.getClient() != null) {
+            Set<JsonNode> nodes = this.hostToId.get(tracking.getClient().getClientId());
+            if (nodes != null) {
+                nodes.remove(id);
             }
         }
     }
@@ -85,28 +109,57 @@ public class ResponseTracker implements Runnable {
     }
 
     public void registerTrackingRequest(JsonRpcRequest req, ResponseTracking tracking) {
-        JsonNode id = req.getId();
-        List<JsonNode> nodes = new CopyOnWriteArrayList<>();
-        try (LockWrapper ignored = new LockWrapper(this.lock)) {
-            this.map.put(id, tracking);
+        track(req.getId(), tracking, hostIds(tracking));
+    }
 
-            if(!this.queue.contains(id)){
-                this.queue.add(id);
+    /**
+     * Registers calls of a batch together with their tracking. Each request is tracked and retried on its own so only
+     * the requests which time out are sent again. Nothing is registered when any of the requests was already sent.
+     *
+     * @param trackings - tracking of each request in the batch.
+     */
+    public void registerBatch(List<ResponseTracking> trackings) {
+        List<JsonNode> registered = new ArrayList<>(trackings.size());
+        for (ResponseTracking tracking : trackings) {
+            JsonNode id = tracking.getRequest().getId();
+            if (this.runningCalls.putIfAbsent(id, tracking.getCall()) != null) {
+                registered.forEach(this.runningCalls::remove);
+                throw new RequestAlreadySentException();
             }
-
-            nodes.add(id);
-            nodes = this.hostToId.putIfAbsent(tracking.getClient().getClientId(), nodes);
-            if (nodes != null && !nodes.contains(id)) {
-                nodes.add(id);
+            registered.add(id);
+        }
+        Set<JsonNode> ids = null;
+        ReactorClient client = null;
+        for (ResponseTracking tracking : trackings) {
+            if (tracking.getClient() != client) {
+                client = tracking.getClient();
+                ids = hostIds(tracking);
             }
+            track(tracking.getRequest().getId(), tracking, ids);
+        }
+    }
+
+    private Set<JsonNode> hostIds(ResponseTracking tracking) {
+        return this.hostToId.computeIfAbsent(tracking.getClient().getClientId(),
+                clientId -> ConcurrentHashMap.newKeySet());
+    }
+
+    private void track(JsonNode id, ResponseTracking tracking, Set<JsonNode> ids) {
+        Tracked tracked = new Tracked(tracking);
+        // the timeout can fire as soon as it is scheduled so the request has to be tracked first
+        Tracked previous = this.map.put(id, tracked);
+        if (previous != null) {
+            previous.cancel();
         }
+        ids.add(id);
+        tracked.timeout = this.wheel.schedule(timeout -> expired(id, tracked), tracking.getTimeout());
     }
 
     @Override
     public void run() {
         try {
             while (this.isTracking.get()) {
-                TimeUnit.MILLISECONDS.sleep(TRACKING_TIMEOUT);
+                TimeUnit.MILLISECONDS.sleep(TICK_DURATION);
                 loop();
             }
         } catch (InterruptedException e) {
@@ -115,32 +168,41 @@ public class ResponseTracker implements Runnable {
     }
 
     protected void loop() {
-        for (JsonNode id : queue) {
-            if (this.runningCalls.computeIfAbsent(id, _id -> {
-                removeRequestFromTracking(id);
-                return null;
-            }) == null) {
-                continue;
-            }
+        loop(System.currentTimeMillis());
+    }
 
-            ResponseTracking tracking = this.map.get(id);
-            if (System.currentTimeMillis() >= tracking.getTimeout()) {
-                RetryContext context = tracking.getContext();
-                context.decreaseAttempts();
-                if (context.getNumberOfAttempts() <= 0) {
-                    handleFailure(tracking, id, "Too many attempts");
-                    continue;
-                }
-                final byte[] message = jsonToByteArray(tracking.getRequest().toJson());
-                if (log.isDebugEnabled()){
-                    log.debug("Message to be sent {}", new String(message, StandardCharsets.UTF_8));
-                }
-                tracking.getClient().sendMessage(message);
-                tracking.setTimeout(getTimeout(context.getTimeout(), context.getTimeUnit()));
-            } else {
-                log.debug("Tracking timeout detected for request id {} ", id.asText());
-            }
+    /**
+     * Expires requests whose timeout is not after the provided time.
+     *
+     * @param now - Current time in milliseconds.
+     */
+    void loop(long now) {
+        this.wheel.advance(now);
+    }
+
+    private void expired(JsonNode id, Tracked tracked) {
+        if (this.map.get(id) != tracked) {
+            // removed or registered again in the meantime
+            return;
+        }
+        if (!this.runningCalls.containsKey(id)) {
+            removeRequestFromTracking(id);
+            return;
+        }
+        ResponseTracking tracking = tracked.tracking;
+        RetryContext context = tracking.getContext();
+        context.decreaseAttempts();
+        if (context.getNumberOfAttempts() <= 0) {
+            handleFailure(tracking, id, "Too many attempts");
+            return;
+        }
+        final byte[] message = jsonToByteArray(tracking.getRequest().toJson());
+        if (log.isDebugEnabled()){
+            log.debug("Message to be sent {}", new String(message, StandardCharsets.UTF_8));
         }
+        tracking.getClient().sendMessage(message);
+        tracking.setTimeout(getTimeout(context.getTimeout(), context.getTimeUnit()));
+        tracked.timeout = this.wheel.schedule(timeout -> expired(id, tracked), tracking.getTimeout());
     }
 
     public void close() {
@@ -156,32 +218,33 @@ public class ResponseTracker implements Runnable {
     }
 
     public void setExecutorService(ScheduledExecutorService executorService) {
-        this.executorService = executorService;
+        setCallbackExecutor(executorService);
+    }
+
+    /**
+     * @param callbackExecutor - used to notify callbacks of failed calls.
+     */
+    public void setCallbackExecutor(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
     }
 
     private void remove(ResponseTracking tracking, JsonNode id, JsonRpcResponse response) {
-        try (LockWrapper ignored = new LockWrapper(this.lock)) {
-            JsonRpcCall call = this.runningCalls.remove(id);
-            boolean callbackNotified = false;
-            if (call != null) {
-                call.addResponse(response);
-                if (call.getCallback() != null && executorService != null) {
-                    callbackNotified = true;
-                    executorService.schedule(() -> call.getCallback().onFailure(mapValues(response.getError())),
-                            0,
-                            TimeUnit.SECONDS);
-                }
+        JsonRpcCall call = this.runningCalls.remove(id);
+        boolean callbackNotified = false;
+        if (call != null) {
+            call.addResponse(response);
+            if (call.getCallback() != null && callbackExecutor != null) {
+                callbackNotified = true;
+                callbackExecutor.execute(() -> call.getCallback().onFailure(mapValues(response.getError())));
             }
-            removeRequestFromTracking(id);
-            if (!callbackNotified && tracking != null && tracking.getClient() != null) {
-                tracking.getCall().addResponse(response);
-                if (tracking.getCall().getCallback() != null && executorService != null) {
-                    executorService.schedule(() -> tracking.getCall()
-                            .getCallback()
-                            .onFailure(mapValues(response.getError())),
-                            0,
-                            TimeUnit.SECONDS);
-                }
+        }
+        removeRequestFromTracking(id);
+        if (!callbackNotified && tracking != null && tracking.getClient() != null) {
+            tracking.getCall().addResponse(response);
+            if (tracking.getCall().getCallback() != null && callbackExecutor != null) {
+                callbackExecutor.execute(() -> tracking.getCall()
+                        .getCallback()
+                        .onFailure(mapValues(response.getError())));
             }
         }
     }
@@ -193,24 +256,31 @@ public class ResponseTracker implements Runnable {
         String message = (String) map.get("message");
         JsonRpcResponse errorResponse = buildErrorResponse(null, 5022, message);
 
-        try (LockWrapper ignored = new LockWrapper(this.lock)) {
-            if (ReactorClient.CLIENT_CLOSED.equals(message)) {
-                removeNodes(this.hostToId.get(code), errorResponse);
-            } else {
-                String hostname = code.substring(0, code.indexOf(":"));
-                this.hostToId.keySet().stream().filter(key -> key.startsWith(hostname))
-                        .forEach(key -> removeNodes(this.hostToId.get(key), errorResponse));
-            }
+        if (ReactorClient.CLIENT_CLOSED.equals(message)) {
+            removeNodes(this.hostToId.get(code), errorResponse);
+        } else {
+            String hostname = code.substring(0, code.indexOf(":"));
+            this.hostToId.forEach((key, nodes) -> {
+                if (key.startsWith(hostname)) {
+                    removeNodes(nodes, errorResponse);
+                }
+            });
         }
     }
 
-    private void removeNodes(List<JsonNode> nodes, JsonRpcResponse errorResponse) {
-        nodes.stream()
-                .filter(id -> !(id instanceof NullNode))
-                .forEach(id -> remove(this.map.get(id), id, errorResponse));
+    private void removeNodes(Set<JsonNode> nodes, JsonRpcResponse errorResponse) {
+        if (nodes == null) {
+            return;
+        }
+        for (JsonNode id : nodes) {
+            if (!(id instanceof NullNode)) {
+                Tracked tracked = this.map.get(id);
+                remove(tracked == null ? null : tracked.tracking, id, errorResponse);
+            }
+        }
     }
 
-    protected Map<String, List<JsonNode>> getHostMap() {
+    protected Map<String, Set<JsonNode>> getHostMap() {
         return this.hostToId;
     }
 }
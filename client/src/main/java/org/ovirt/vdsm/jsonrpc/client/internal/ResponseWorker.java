@@ -4,10 +4,14 @@ import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.UTF8;
 import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.logException;
 import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.mapValues;
 
+import java.nio.ByteBuffer;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -17,6 +21,7 @@ import org.ovirt.vdsm.jsonrpc.client.JsonRpcEvent;
 import org.ovirt.vdsm.jsonrpc.client.JsonRpcResponse;
 import org.ovirt.vdsm.jsonrpc.client.events.EventPublisher;
 import org.ovirt.vdsm.jsonrpc.client.reactors.ReactorClient;
+import org.ovirt.vdsm.jsonrpc.client.reactors.ReactorClient.MessageListener;
 import org.ovirt.vdsm.jsonrpc.client.reactors.ReactorFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,9 +37,23 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
  * <code>ResponseWorker</code> is responsible to process responses for all the {@link JsonRpcClient} and it is produced
  * by {@link ReactorFactory}.
  *
+ * Messages are processed by one or more lanes. Each lane is a thread with its own queue and every client is bound to
+ * a single lane when registered so messages from a host are processed in the order they arrived while messages from
+ * different hosts can be processed in parallel.
+ *
+ * Size of messages waiting in a lane is bounded by watermarks. A client which adds a message while the lane holds
+ * more than the high watermark stops reading from its channel so TCP flow control pushes back on the host, reading
+ * resumes once the lane drains to the low watermark.
+ *
  */
 public final class ResponseWorker extends Thread {
-    private final LinkedBlockingQueue<MessageContext> queue;
+    public static final long DEFAULT_HIGH_WATERMARK = 64 * 1024 * 1024;
+    public static final long DEFAULT_LOW_WATERMARK = 16 * 1024 * 1024;
+    private final LinkedBlockingQueue<MessageContext>[] queues;
+    private final Backlog[] backlogs;
+    private volatile long highWatermark = DEFAULT_HIGH_WATERMARK;
+    private volatile long lowWatermark = DEFAULT_LOW_WATERMARK;
+    private final AtomicInteger nextLane = new AtomicInteger();
     private static final ObjectMapper MAPPER;
     private final ResponseTracker tracker;
     private final EventPublisher publisher;
@@ -49,7 +68,27 @@ public final class ResponseWorker extends Thread {
     }
 
     public ResponseWorker(int parallelism, int eventTimeoutInHours) {
-        this.queue = new LinkedBlockingQueue<>();
+        this(parallelism, eventTimeoutInHours, 1);
+    }
+
+    /**
+     * Creates worker which processes messages using provided number of lanes.
+     *
+     * @param parallelism - the parallelism level using for event processing.
+     * @param eventTimeoutInHours - the timeout after which the events are purged from the queue.
+     * @param lanes - number of threads processing incoming messages.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public ResponseWorker(int parallelism, int eventTimeoutInHours, int lanes) {
+        if (lanes <= 0) {
+            throw new IllegalArgumentException("Number of lanes needs to be positive");
+        }
+        this.queues = new LinkedBlockingQueue[lanes];
+        this.backlogs = new Backlog[lanes];
+        for (int i = 0; i < lanes; i++) {
+            this.queues[i] = new LinkedBlockingQueue<>();
+            this.backlogs[i] = new Backlog();
+        }
         this.tracker = new ResponseTracker();
         this.publisher =
                 new EventPublisher(new ForkJoinPool(parallelism,
@@ -63,6 +102,14 @@ public final class ResponseWorker extends Thread {
         trackerThread.setDaemon(true);
         trackerThread.start();
 
+        for (int i = 1; i < lanes; i++) {
+            final LinkedBlockingQueue<MessageContext> queue = this.queues[i];
+            Thread lane = new Thread(() -> process(queue));
+            lane.setName("ResponseWorker " + i);
+            lane.setDaemon(true);
+            lane.start();
+        }
+
         setName("ResponseWorker");
         setDaemon(true);
         start();
@@ -84,47 +131,105 @@ public final class ResponseWorker extends Thread {
      */
     public JsonRpcClient register(ReactorClient client) {
         final JsonRpcClient jsonRpcClient = new JsonRpcClient(client, this.tracker);
-        client.addEventListener(message -> queue.add(new MessageContext(jsonRpcClient, message)));
+        final int lane = Math.floorMod(this.nextLane.getAndIncrement(), this.queues.length);
+        final LinkedBlockingQueue<MessageContext> queue = this.queues[lane];
+        final Backlog backlog = this.backlogs[lane];
+        client.addEventListener(new MessageListener() {
+
+            @Override
+            public void onMessageReceived(byte[] message) {
+                onMessageReceived(message != null ? ByteBuffer.wrap(message) : null, () -> {
+                });
+            }
+
+            @Override
+            public void onMessageReceived(ByteBuffer message, Runnable release) {
+                final int size = message != null ? message.remaining() : 0;
+                backlog.added(client, size);
+                queue.add(new MessageContext(jsonRpcClient, message, () -> {
+                    release.run();
+                    backlog.processed(size);
+                }));
+            }
+        });
         return jsonRpcClient;
     }
 
+    /**
+     * Sets limits of the size of messages waiting in a single lane.
+     *
+     * @param high - Number of bytes above which clients adding messages stop reading.
+     * @param low - Number of bytes at which suspended clients resume reading.
+     */
+    public void setWatermarks(long high, long low) {
+        if (low < 0 || high < low) {
+            throw new IllegalArgumentException("Watermarks need to satisfy 0 <= low <= high");
+        }
+        this.lowWatermark = low;
+        this.highWatermark = high;
+    }
+
+    public long getHighWatermark() {
+        return this.highWatermark;
+    }
+
+    public long getLowWatermark() {
+        return this.lowWatermark;
+    }
+
+    /**
+     * @return Number of bytes of messages which were received and not processed yet.
+     */
+    public long getQueuedBytes() {
+        long bytes = 0;
+        for (Backlog backlog : this.backlogs) {
+            bytes += backlog.getBytes();
+        }
+        return bytes;
+    }
+
     public void run() {
+        process(this.queues[0]);
+    }
+
+    private void process(LinkedBlockingQueue<MessageContext> queue) {
         AtomicReference<MessageContext> contextRef = new AtomicReference<>();
         while (true) {
             try {
-                contextRef.set(this.queue.take());
+                contextRef.set(queue.take());
                 if (contextRef.get().getClient() == null) {
                     break;
                 }
                 if (log.isDebugEnabled()) {
-                    String message = new String(contextRef.get().getMessage(), UTF8);
+                    String message = UTF8.decode(contextRef.get().getMessage().duplicate()).toString();
                     Matcher matcher = SENSITIVE_DATA_PATTERN.matcher(message);
                     if (matcher.find()) {
                         message = matcher.replaceAll("$1\"***\"");
                     }
                     log.debug("Message received: " + message);
                 }
-                JsonNode rootNode = MAPPER.readTree(contextRef.get().getMessage());
-                if (!rootNode.isArray()) {
-                    processIncomingObject(contextRef.get().getClient(), rootNode);
-                } else {
-                    rootNode.elements()
-                            .forEachRemaining(node -> processIncomingObject(contextRef.get().getClient(), node));
+                for (MessageEnvelope envelope : MessageEnvelope.parse(MAPPER, contextRef.get().getMessage())) {
+                    processIncomingObject(contextRef.get().getClient(), envelope);
                 }
             } catch (Exception e) {
                 log.warn("Exception thrown during message processing");
                 if (log.isDebugEnabled()) {
                     log.debug(e.getMessage(), e);
                 }
+            } finally {
+                MessageContext context = contextRef.get();
+                if (context != null && context.getClient() != null) {
+                    context.release();
+                }
             }
         }
     }
 
-    private void processIncomingObject(JsonRpcClient client, JsonNode node) {
-        final JsonNode id = node.get("id");
-        final JsonNode error = node.get("error");
+    private void processIncomingObject(JsonRpcClient client, MessageEnvelope envelope) {
+        final JsonNode id = envelope.getId();
+        final JsonNode error = envelope.getError();
         if (error != null && !NullNode.class.isInstance(error)) {
-            JsonRpcResponse response = JsonRpcResponse.fromJsonNode(node);
+            JsonRpcResponse response = JsonRpcResponse.fromEnvelope(envelope);
             Map<String, Object> map = mapValues(response.getError());
             Object code = map.get("code");
             if (String.class.isInstance(code)) {
@@ -143,17 +248,19 @@ public final class ResponseWorker extends Thread {
         }
 
         if (id == null || NullNode.class.isInstance(id)) {
-            JsonRpcEvent event = JsonRpcEvent.fromJsonNode(node);
+            JsonRpcEvent event = JsonRpcEvent.fromEnvelope(envelope);
             String method = client.getHostname() + event.getMethod();
             event.setMethod(method);
             if (log.isDebugEnabled()) {
-                log.debug("Event arrived from " + client.getHostname() + " containing " + event.getParams());
+                // the raw form is logged so that params are not parsed for events nobody subscribed to
+                Object params = event.getRawParams() != null ? event.getRawParams() : event.getParams();
+                log.debug("Event arrived from " + client.getHostname() + " containing " + params);
             }
             processNotifications(event);
             return;
         }
         try {
-            client.processResponse(JsonRpcResponse.fromJsonNode(node));
+            client.processResponse(JsonRpcResponse.fromEnvelope(envelope));
         } catch (IllegalArgumentException e) {
             logException(log, "Received response is not correct", e);
         }
@@ -164,11 +271,46 @@ public final class ResponseWorker extends Thread {
     }
 
     public void close() {
-        this.queue.add(new MessageContext(null, null));
+        for (LinkedBlockingQueue<MessageContext> queue : this.queues) {
+            queue.add(new MessageContext(null, null));
+        }
         this.tracker.close();
         this.publisher.close();
     }
 
+    /**
+     * Size of messages waiting in a lane together with clients which stopped reading because of it.
+     */
+    private final class Backlog {
+        private final Set<ReactorClient> suspended = new HashSet<>();
+        private long bytes;
+
+        synchronized void added(ReactorClient client, int size) {
+            this.bytes += size;
+            if (this.bytes > highWatermark && this.suspended.add(client)) {
+                log.debug("Inbound queue holds {} bytes, suspending reads from {}", this.bytes,
+                        client.getHostname());
+                client.suspendReading();
+            }
+        }
+
+        synchronized void processed(int size) {
+            this.bytes -= size;
+            if (this.bytes <= lowWatermark && !this.suspended.isEmpty()) {
+                this.suspended.forEach(ReactorClient::resumeReading);
+                this.suspended.clear();
+            }
+        }
+
+        synchronized long getBytes() {
+            return this.bytes;
+        }
+    }
+
+    public int getLanes() {
+        return this.queues.length;
+    }
+
     /**
      * @return publisher which can be used to subscribe to events defined by subscription id.
      */
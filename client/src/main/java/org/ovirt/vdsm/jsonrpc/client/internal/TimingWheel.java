@@ -0,0 +1,223 @@
+package org.ovirt.vdsm.jsonrpc.client.internal;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hashed timing wheel which keeps timeouts in buckets indexed by the tick at which they expire.
+ *
+ * Scheduling and cancellation are constant time operations which can be performed by any thread. They only put
+ * the timeout to a queue which is drained by the thread calling {@link #advance(long)}. The same thread moves the
+ * timeouts to the buckets, removes cancelled ones and runs the tasks of expired ones so buckets need no locking.
+ *
+ */
+public class TimingWheel {
+
+    /**
+     * Task executed when a timeout expires.
+     */
+    public interface TimerTask {
+        void run(Timeout timeout);
+    }
+
+    private static final int INIT = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    /**
+     * Handle of scheduled task.
+     */
+    public final class Timeout {
+        private final TimerTask task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(INIT);
+        private long rounds;
+        private Bucket bucket;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(TimerTask task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public long getDeadline() {
+            return this.deadline;
+        }
+
+        /**
+         * Cancels the timeout so its task is not executed.
+         *
+         * @return <code>false</code> when the timeout already expired or was cancelled.
+         */
+        public boolean cancel() {
+            if (!this.state.compareAndSet(INIT, CANCELLED)) {
+                return false;
+            }
+            cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return this.state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return this.state.get() == EXPIRED;
+        }
+
+        private void expire() {
+            if (!this.state.compareAndSet(INIT, EXPIRED)) {
+                return;
+            }
+            try {
+                this.task.run(this);
+            } catch (RuntimeException e) {
+                log.warn("Timer task failed", e);
+            }
+        }
+    }
+
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (this.head == null) {
+                this.head = timeout;
+            } else {
+                this.tail.next = timeout;
+                timeout.previous = this.tail;
+            }
+            this.tail = timeout;
+        }
+
+        private Timeout remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.previous != null) {
+                timeout.previous.next = next;
+            }
+            if (next != null) {
+                next.previous = timeout.previous;
+            }
+            if (timeout == this.head) {
+                this.head = next;
+            }
+            if (timeout == this.tail) {
+                this.tail = timeout.previous;
+            }
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            return next;
+        }
+
+        private void expire() {
+            Timeout timeout = this.head;
+            while (timeout != null) {
+                if (timeout.rounds <= 0) {
+                    Timeout current = timeout;
+                    timeout = remove(timeout);
+                    current.expire();
+                } else {
+                    timeout.rounds--;
+                    timeout = timeout.next;
+                }
+            }
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(TimingWheel.class);
+    private final long tickDuration;
+    private final long startTime;
+    private final Bucket[] buckets;
+    private final int mask;
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private long tick;
+
+    /**
+     * Creates the wheel.
+     *
+     * @param tickDuration - Precision of the wheel in milliseconds.
+     * @param size - Number of buckets which is rounded up to power of two.
+     * @param startTime - Time in milliseconds corresponding to the first tick.
+     */
+    public TimingWheel(long tickDuration, int size, long startTime) {
+        if (tickDuration <= 0 || size <= 0) {
+            throw new IllegalArgumentException("Tick duration and size need to be positive");
+        }
+        int buckets = Integer.highestOneBit(size);
+        if (buckets < size) {
+            buckets <<= 1;
+        }
+        this.tickDuration = tickDuration;
+        this.startTime = startTime;
+        this.buckets = new Bucket[buckets];
+        for (int i = 0; i < buckets; i++) {
+            this.buckets[i] = new Bucket();
+        }
+        this.mask = buckets - 1;
+    }
+
+    public long getTickDuration() {
+        return this.tickDuration;
+    }
+
+    /**
+     * Schedules a task.
+     *
+     * @param task - Task to be executed when the deadline is reached.
+     * @param deadline - Time in milliseconds at which the task should be executed.
+     * @return Handle which can be used to cancel the task.
+     */
+    public Timeout schedule(TimerTask task, long deadline) {
+        Timeout timeout = new Timeout(task, deadline);
+        this.scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Processes all ticks up to provided time and executes tasks of expired timeouts. It has to be always called by
+     * the same thread.
+     *
+     * @param now - Current time in milliseconds.
+     */
+    public void advance(long now) {
+        long target = Math.floorDiv(now - this.startTime, this.tickDuration);
+        while (this.tick <= target) {
+            transferCancelled();
+            transferScheduled();
+            this.buckets[(int) (this.tick & this.mask)].expire();
+            this.tick++;
+        }
+    }
+
+    private void transferScheduled() {
+        Timeout timeout;
+        while ((timeout = this.scheduled.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            // the first tick at which deadline is not in the future
+            long expiration = Math.max(-Math.floorDiv(this.startTime - timeout.deadline, this.tickDuration),
+                    this.tick);
+            timeout.rounds = (expiration - this.tick) / this.buckets.length;
+            this.buckets[(int) (expiration & this.mask)].add(timeout);
+        }
+    }
+
+    private void transferCancelled() {
+        Timeout timeout;
+        while ((timeout = this.cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+}
@@ -37,10 +37,10 @@ public abstract class PlainClient extends StompCommonClient {
 
     @Override
     public void updateInterestedOps() {
-        if (outbox.isEmpty()) {
-            getSelectionKey().interestOps(SelectionKey.OP_READ);
+        if (!hasOutgoing()) {
+            getSelectionKey().interestOps(getReadInterest());
         } else {
-            getSelectionKey().interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            getSelectionKey().interestOps(getReadInterest() | SelectionKey.OP_WRITE);
         }
     }
 
@@ -54,6 +54,11 @@ public abstract class PlainClient extends StompCommonClient {
         channel.write(buff);
     }
 
+    @Override
+    protected void write(ByteBuffer[] buffs) throws IOException {
+        channel.write(buffs);
+    }
+
     @Override
     protected void postConnect(OneTimeCallback callback) throws ClientConnectionException {
         try {
@@ -13,6 +13,7 @@ import java.nio.channels.spi.SelectorProvider;
 import java.util.Set;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.ovirt.vdsm.jsonrpc.client.ClientConnectionException;
 import org.ovirt.vdsm.jsonrpc.client.utils.ReactorScheduler;
@@ -30,6 +31,7 @@ public abstract class Reactor extends Thread {
     private static final int TIMEOUT = 1000;
     private final AbstractSelector selector;
     private final ReactorScheduler scheduler;
+    private final AtomicInteger clients = new AtomicInteger();
     private boolean isRunning;
 
     public Reactor() throws IOException {
@@ -135,7 +137,21 @@ public abstract class Reactor extends Thread {
     }
 
     public ReactorClient createClient(String hostname, int port) throws ClientConnectionException {
-        return createClient(this, this.selector, hostname, port);
+        final ReactorClient client = createClient(this, this.selector, hostname, port);
+        this.clients.incrementAndGet();
+        client.assigned();
+        return client;
+    }
+
+    /**
+     * @return Number of clients created by this reactor which were not closed yet.
+     */
+    public int getNumberOfClients() {
+        return this.clients.get();
+    }
+
+    void released() {
+        this.clients.decrementAndGet();
     }
 
     public void close() {
@@ -11,6 +11,7 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.rmi.ConnectException;
 import java.security.cert.Certificate;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
@@ -22,13 +23,16 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.ovirt.vdsm.jsonrpc.client.ClientConnectionException;
+import org.ovirt.vdsm.jsonrpc.client.OutboxFullException;
 import org.ovirt.vdsm.jsonrpc.client.internal.ClientPolicy;
 import org.ovirt.vdsm.jsonrpc.client.utils.LockWrapper;
 import org.ovirt.vdsm.jsonrpc.client.utils.OneTimeCallback;
@@ -47,10 +51,40 @@ public abstract class ReactorClient {
 
     public interface MessageListener {
         void onMessageReceived(byte[] message);
+
+        /**
+         * Receives view of a message without copying it, the view must not be modified. Messages emitted by clients
+         * are backed by an array owned by the message so the view and its parts stay readable after the call.
+         * Release needs to be run once the message is processed, it is counted as pending inbound data of the client
+         * until then.
+         *
+         * By default the message is copied and passed to {@link #onMessageReceived(byte[])}.
+         *
+         * @param message - Content of the message between position and limit.
+         * @param release - Marks the message as processed, running it more than once has no effect.
+         */
+        default void onMessageReceived(ByteBuffer message, Runnable release) {
+            byte[] content = new byte[message.remaining()];
+            message.duplicate().get(content);
+            release.run();
+            onMessageReceived(content);
+        }
+    }
+
+    public interface WritabilityListener {
+        /**
+         * Called when frames queued for the client reach the outbox limits or drain to half of them. It is called by
+         * the thread which changed the outbox, while holding the client's writability lock, so it should not block.
+         *
+         * @param client - Client which changed writability.
+         * @param writable - <code>true</code> when the client accepts more frames.
+         */
+        void onWritabilityChanged(ReactorClient client, boolean writable);
     }
     public static final String CLIENT_CLOSED = "Client close";
     public static final int BUFFER_SIZE = 1024;
     private static final int LIMIT = 20000;
+    private static final int MAX_GATHERED_BUFFERS = 1024;
     private static final Logger log = LoggerFactory.getLogger(ReactorClient.class);
     private final String hostname;
     private final int port;
@@ -58,13 +92,24 @@ public abstract class ReactorClient {
     private final AtomicLong lastIncomingHeartbeat = new AtomicLong(0);
     private final AtomicLong lastOutgoingHeartbeat = new AtomicLong(0);
     private final AtomicBoolean closing = new AtomicBoolean();
+    private final AtomicBoolean assigned = new AtomicBoolean();
+    private final AtomicLong pendingInbound = new AtomicLong();
+    // accessed by the reactor thread only
+    private boolean reading = true;
+    private final AtomicLong outboxBytes = new AtomicLong();
+    private final AtomicInteger outboxFrames = new AtomicInteger();
+    private final Object writability = new Object();
+    // guarded by writability
+    private boolean writable = true;
+    private final List<WritabilityListener> writabilityListeners = new CopyOnWriteArrayList<>();
     protected final AtomicBoolean half = new AtomicBoolean(true);
     protected volatile ClientPolicy policy = new DefaultConnectionRetryPolicy();
     protected final List<MessageListener> eventListeners;
     protected final Reactor reactor;
-    protected final Deque<ByteBuffer> outbox;
+    protected final Deque<ByteBuffer[]> outbox;
+    // frames taken from the outbox which are being written, accessed by the reactor thread only
+    private final Deque<ByteBuffer[]> inflight = new ArrayDeque<>();
     protected SelectionKey key;
-    protected ByteBuffer ibuff = null;
     protected SocketChannel channel;
 
     public ReactorClient(Reactor reactor, String hostname, int port) {
@@ -165,8 +210,161 @@ public abstract class ReactorClient {
     }
 
     protected void emitOnMessageReceived(byte[] message) {
+        if (message == null) {
+            for (MessageListener el : eventListeners) {
+                el.onMessageReceived(message);
+            }
+            return;
+        }
+        emitOnMessageReceived(ByteBuffer.wrap(message));
+    }
+
+    /**
+     * Passes view of the message to the listeners without copying it. Each listener gets its own view so the array
+     * backing the message stays accessible to the parser.
+     *
+     * @param message - Content of the message which is not modified afterwards.
+     */
+    protected void emitOnMessageReceived(ByteBuffer message) {
         for (MessageListener el : eventListeners) {
-            el.onMessageReceived(message);
+            final int size = message.remaining();
+            final AtomicBoolean released = new AtomicBoolean();
+            this.pendingInbound.addAndGet(size);
+            el.onMessageReceived(message.duplicate(), () -> {
+                if (released.compareAndSet(false, true)) {
+                    this.pendingInbound.addAndGet(-size);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return Number of bytes of received messages which were not released by the listeners yet.
+     */
+    public long getPendingInboundBytes() {
+        return this.pendingInbound.get();
+    }
+
+    /**
+     * Stops reading from the channel until {@link #resumeReading()} is called so that TCP flow control pushes back
+     * on the peer. Frames which were already read are still delivered to the listeners.
+     */
+    public void suspendReading() {
+        scheduleReading(false);
+    }
+
+    /**
+     * Resumes reading from the channel suspended by {@link #suspendReading()}.
+     */
+    public void resumeReading() {
+        scheduleReading(true);
+    }
+
+    private void scheduleReading(boolean reading) {
+        scheduleTask(() -> {
+            this.reading = reading;
+            if (this.key != null && this.key.isValid()) {
+                updateInterestedOps();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return {@link SelectionKey#OP_READ} or 0 when reading is suspended.
+     */
+    protected int getReadInterest() {
+        return this.reading ? SelectionKey.OP_READ : 0;
+    }
+
+    public void addWritabilityListener(WritabilityListener listener) {
+        this.writabilityListeners.add(listener);
+    }
+
+    public void removeWritabilityListener(WritabilityListener listener) {
+        this.writabilityListeners.remove(listener);
+    }
+
+    /**
+     * @return <code>false</code> when frames queued for the client reached limits defined by
+     *         {@link ClientPolicy#setOutboxLimits(long, int)} and did not drain to half of them yet.
+     */
+    public boolean isWritable() {
+        synchronized (this.writability) {
+            return this.writable;
+        }
+    }
+
+    /**
+     * Waits until the client is writable for at most {@link ClientPolicy#getOutboxTimeout()} milliseconds.
+     *
+     * @throws OutboxFullException when the client is not writable after the timeout.
+     */
+    public void awaitWritable() throws OutboxFullException {
+        synchronized (this.writability) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.policy.getOutboxTimeout());
+            while (!this.writable) {
+                long timeout = deadline - System.nanoTime();
+                if (timeout <= 0) {
+                    throw new OutboxFullException("Outbox of host '" + getHostname() + "' is full");
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this.writability, timeout);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new OutboxFullException("Interrupted while waiting for host '" + getHostname() + "'", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Number of bytes queued for the client which were not written yet.
+     */
+    public long getOutboxBytes() {
+        return this.outboxBytes.get();
+    }
+
+    /**
+     * @return Number of frames queued for the client which were not completely written yet.
+     */
+    public int getOutboxFrames() {
+        return this.outboxFrames.get();
+    }
+
+    /**
+     * Accounts a frame added to the outbox.
+     *
+     * @param frame - Buffers forming the frame.
+     */
+    protected void queued(ByteBuffer[] frame) {
+        this.outboxBytes.addAndGet(remaining(frame));
+        this.outboxFrames.incrementAndGet();
+        updateWritability();
+    }
+
+    private void updateWritability() {
+        long bytesLimit = this.policy.getOutboxBytes();
+        int framesLimit = this.policy.getOutboxFrames();
+        synchronized (this.writability) {
+            // counters are read under the lock so the last caller always decides on the latest outbox size
+            long bytes = this.outboxBytes.get();
+            int frames = this.outboxFrames.get();
+            if (this.writable) {
+                if ((bytesLimit == 0 || bytes < bytesLimit) && (framesLimit == 0 || frames < framesLimit)) {
+                    return;
+                }
+                this.writable = false;
+            } else {
+                if (bytesLimit != 0 && bytes > bytesLimit / 2 || framesLimit != 0 && frames > framesLimit / 2) {
+                    return;
+                }
+                this.writable = true;
+                this.writability.notifyAll();
+            }
+            for (WritabilityListener listener : this.writabilityListeners) {
+                listener.onWritabilityChanged(this, this.writable);
+            }
         }
     }
 
@@ -180,9 +378,16 @@ public abstract class ReactorClient {
     }
 
     public Future<Void> close() {
+        if (this.assigned.compareAndSet(true, false)) {
+            this.reactor.released();
+        }
         return scheduleClose(CLIENT_CLOSED);
     }
 
+    void assigned() {
+        this.assigned.set(true);
+    }
+
     private Future<Void> scheduleClose(final String message) {
         this.closing.set(true);
         clean();
@@ -202,7 +407,9 @@ public abstract class ReactorClient {
         if (this.closing.get()) {
             return;
         }
-        processIncoming();
+        if (this.reading) {
+            processIncoming();
+        }
         if (this.closing.get()) {
             return;
         }
@@ -256,20 +463,95 @@ public abstract class ReactorClient {
         this.lastOutgoingHeartbeat.set(this.now());
     }
 
+    /**
+     * Writes queued frames until the outbox is empty, the channel does not accept more data or the number of bytes
+     * defined by {@link ClientPolicy#getOutgoingBytesPerPass()} is written. Several frames are written together
+     * using single gathering write.
+     *
+     * @throws IOException Thrown when writing issue occurred.
+     */
     protected void processOutgoing() throws IOException {
-        final ByteBuffer buff = outbox.peekLast();
+        final long budget = this.policy.getOutgoingBytesPerPass();
+        long written = 0;
+        boolean attempted = false;
+        while (written < budget) {
+            final ByteBuffer[] buffs = gather(budget - written);
+            if (buffs.length == 0) {
+                break;
+            }
+            attempted = true;
+            long remaining = remaining(buffs);
+            write(buffs);
+            long left = remaining(buffs);
+            written += remaining - left;
+            this.outboxBytes.addAndGet(left - remaining);
+
+            while (!this.inflight.isEmpty() && !hasRemaining(this.inflight.peekFirst())) {
+                this.inflight.removeFirst();
+                this.outboxFrames.decrementAndGet();
+            }
+            if (left != 0) {
+                // channel is full, wait for next writable event
+                break;
+            }
+        }
 
-        if (buff == null) {
-            return;
+        if (attempted) {
+            updateLastOutgoingHeartbeat();
+            updateWritability();
         }
+        updateInterestedOps();
+    }
 
-        write(buff);
+    private ByteBuffer[] gather(long limit) {
+        long size = 0;
+        int count = 0;
+        for (ByteBuffer[] frame : this.inflight) {
+            size += remaining(frame);
+            count += frame.length;
+        }
+        while (size < limit && count < MAX_GATHERED_BUFFERS) {
+            // frames are added to the head so the oldest frame or the one sent with priority is at the tail
+            final ByteBuffer[] frame = this.outbox.pollLast();
+            if (frame == null) {
+                break;
+            }
+            this.inflight.addLast(frame);
+            size += remaining(frame);
+            count += frame.length;
+        }
 
-        if (!buff.hasRemaining()) {
-            outbox.removeLast();
+        final ByteBuffer[] buffs = new ByteBuffer[count];
+        int index = 0;
+        for (ByteBuffer[] frame : this.inflight) {
+            System.arraycopy(frame, 0, buffs, index, frame.length);
+            index += frame.length;
         }
-        updateLastOutgoingHeartbeat();
-        updateInterestedOps();
+        return buffs;
+    }
+
+    /**
+     * @return <code>true</code> when there are frames waiting to be written.
+     */
+    protected boolean hasOutgoing() {
+        return !this.outbox.isEmpty() || !this.inflight.isEmpty();
+    }
+
+    private static long remaining(ByteBuffer[] buffs) {
+        long remaining = 0;
+        for (ByteBuffer buff : buffs) {
+            remaining += buff.remaining();
+        }
+        return remaining;
+    }
+
+    private static boolean hasRemaining(ByteBuffer[] frame) {
+        for (ByteBuffer buff : frame) {
+            if (buff.hasRemaining()) {
+                return true;
+            }
+        }
+        return false;
     }
 
     protected void closeChannel() {
@@ -354,6 +636,26 @@ public abstract class ReactorClient {
      */
     protected abstract void write(ByteBuffer buff) throws IOException;
 
+    /**
+     * Writes provided buffers in order. Transports which support gathering writes should override it to
+     * write all of the buffers at once.
+     *
+     * @param buffs
+     *            provided buffers to be written.
+     * @throws IOException
+     *             when networking issue occurs.
+     */
+    protected void write(ByteBuffer[] buffs) throws IOException {
+        for (ByteBuffer buff : buffs) {
+            if (buff.hasRemaining()) {
+                write(buff);
+                if (buff.hasRemaining()) {
+                    return;
+                }
+            }
+        }
+    }
+
     /**
      * Transport specific post connection functionality.
      *
@@ -3,14 +3,16 @@ package org.ovirt.vdsm.jsonrpc.client.reactors;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
 
+import javax.net.ssl.SSLContext;
+
 import org.ovirt.vdsm.jsonrpc.client.ClientConnectionException;
 import org.ovirt.vdsm.jsonrpc.client.internal.ResponseWorker;
 import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.SSLStompReactor;
 import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.StompReactor;
 
 /**
- * Factory class which provide single instance of <code>Reactor</code>s or <code>ResponseWorker</code> within single
- * loading scope.
+ * Factory class which provide single instance of <code>Reactor</code>s, <code>ReactorGroup</code>s or
+ * <code>ResponseWorker</code> within single loading scope.
  *
  */
 public class ReactorFactory {
@@ -22,6 +24,8 @@ public class ReactorFactory {
 
     private static volatile StompReactor stompReactor;
     private static volatile SSLStompReactor sslStompReactor;
+    private static volatile ReactorGroup stompReactorGroup;
+    private static volatile ReactorGroup sslStompReactorGroup;
     private static volatile ResponseWorker worker;
 
     /**
@@ -41,6 +45,68 @@ public class ReactorFactory {
         }
     }
 
+    /**
+     * Provides group of <code>Reactor</code>s with one reactor per available processor. Clients are assigned to
+     * the reactors in turns.
+     *
+     * @param provider Provides ability to get SSL context.
+     * @param type <code>ReactorType</code> which will be created.
+     * @return Single instance of <code>ReactorGroup</code> for plain or SSL communication.
+     * @throws ClientConnectionException when unexpected type value is provided or issue with constucting selector.
+     */
+    public static ReactorGroup getReactorGroup(ManagerProvider provider, ReactorType type)
+            throws ClientConnectionException {
+        return getReactorGroup(provider,
+                type,
+                Runtime.getRuntime().availableProcessors(),
+                ReactorGroup.Assignment.ROUND_ROBIN);
+    }
+
+    /**
+     * Provides group of <code>Reactor</code>s. The group is created by the first call and following calls return
+     * the same instance regardless of the size and assignment provided.
+     *
+     * @param provider Provides ability to get SSL context.
+     * @param type <code>ReactorType</code> which will be created.
+     * @param size Number of reactors in the group.
+     * @param assignment Defines how clients are assigned to the reactors.
+     * @return Single instance of <code>ReactorGroup</code> for plain or SSL communication.
+     * @throws ClientConnectionException when unexpected type value is provided or issue with constucting selector.
+     */
+    public static ReactorGroup getReactorGroup(ManagerProvider provider,
+            ReactorType type,
+            int size,
+            ReactorGroup.Assignment assignment) throws ClientConnectionException {
+        if (!ReactorType.STOMP.equals(type)) {
+            throw new ClientConnectionException("Unrecognized reactor type");
+        }
+        if (size < 1) {
+            throw new ClientConnectionException("Reactor group size has to be positive");
+        }
+        if (provider != null) {
+            return getSslStompReactorGroup(provider, size, assignment);
+        }
+        if (stompReactorGroup != null) {
+            return stompReactorGroup;
+        }
+        synchronized (ReactorFactory.class) {
+            if (stompReactorGroup != null) {
+                return stompReactorGroup;
+            }
+            Reactor[] reactors = new Reactor[size];
+            try {
+                for (int i = 0; i < size; i++) {
+                    reactors[i] = new StompReactor();
+                }
+            } catch (IOException e) {
+                closeReactors(reactors);
+                throw new ClientConnectionException(e);
+            }
+            stompReactorGroup = createGroup(reactors, assignment);
+        }
+        return stompReactorGroup;
+    }
+
     /**
      * @param parallelism the parallelism level using for event processing.
      * @return Single instance of <code>ResponseWorker</code>.
@@ -55,6 +121,17 @@ public class ReactorFactory {
      * @return Single instance of <code>ResponseWorker</code>.
      */
     public static ResponseWorker getWorker(int parallelism, int eventTimeoutInHours) {
+        return getWorker(parallelism, eventTimeoutInHours, 1);
+    }
+
+    /**
+     * @param parallelism the parallelism level using for event processing.
+     * @param eventTimeoutInHours the timeout after which the events are purged from the queue.
+     * @param lanes number of threads processing incoming messages. Messages from a connection are always processed
+     *            by the same thread.
+     * @return Single instance of <code>ResponseWorker</code>.
+     */
+    public static ResponseWorker getWorker(int parallelism, int eventTimeoutInHours, int lanes) {
         if (worker != null) {
             return worker;
         }
@@ -62,7 +139,7 @@ public class ReactorFactory {
             if (worker != null) {
                 return worker;
             }
-            worker = new ResponseWorker(parallelism, eventTimeoutInHours);
+            worker = new ResponseWorker(parallelism, eventTimeoutInHours, lanes);
         }
         return worker;
     }
@@ -103,4 +180,44 @@ public class ReactorFactory {
         }
         return sslStompReactor;
     }
+
+    private static ReactorGroup getSslStompReactorGroup(ManagerProvider provider,
+            int size,
+            ReactorGroup.Assignment assignment) throws ClientConnectionException {
+        if (sslStompReactorGroup != null) {
+            return sslStompReactorGroup;
+        }
+        synchronized (ReactorFactory.class) {
+            if (sslStompReactorGroup != null) {
+                return sslStompReactorGroup;
+            }
+            Reactor[] reactors = new Reactor[size];
+            try {
+                SSLContext context = provider.getSSLContext();
+                for (int i = 0; i < size; i++) {
+                    reactors[i] = new SSLStompReactor(context);
+                }
+            } catch (IOException | GeneralSecurityException e) {
+                closeReactors(reactors);
+                throw new ClientConnectionException(e);
+            }
+            sslStompReactorGroup = createGroup(reactors, assignment);
+        }
+        return sslStompReactorGroup;
+    }
+
+    private static ReactorGroup createGroup(Reactor[] reactors, ReactorGroup.Assignment assignment) {
+        for (int i = 0; i < reactors.length; i++) {
+            reactors[i].setName(reactors[i].getReactorName() + " " + i);
+        }
+        return new ReactorGroup(reactors, assignment);
+    }
+
+    private static void closeReactors(Reactor[] reactors) {
+        for (Reactor reactor : reactors) {
+            if (reactor != null) {
+                reactor.close();
+            }
+        }
+    }
 }
@@ -0,0 +1,89 @@
+package org.ovirt.vdsm.jsonrpc.client.reactors;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ovirt.vdsm.jsonrpc.client.ClientConnectionException;
+
+/**
+ * Group of <code>Reactor</code>s which spreads client connections across several event loops.
+ *
+ * Each <code>ReactorClient</code> created by the group is bound to a single <code>Reactor</code> for its whole
+ * life so channel I/O, heartbeats and ssl delegated tasks of the client are always processed by the same thread.
+ *
+ */
+public class ReactorGroup {
+
+    /**
+     * Defines how new clients are assigned to reactors.
+     */
+    public enum Assignment {
+        /**
+         * Reactors are used in turns.
+         */
+        ROUND_ROBIN,
+        /**
+         * Reactor with the lowest number of clients is used.
+         */
+        LEAST_CONNECTIONS
+    }
+
+    private final Reactor[] reactors;
+    private final Assignment assignment;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReactorGroup(Reactor[] reactors, Assignment assignment) {
+        if (reactors == null || reactors.length == 0) {
+            throw new IllegalArgumentException("Reactor group requires at least one reactor");
+        }
+        this.reactors = reactors.clone();
+        this.assignment = assignment;
+    }
+
+    /**
+     * Creates a client bound to one of the reactors chosen according to the assignment.
+     *
+     * @param hostname - Host to connect to.
+     * @param port - Port to connect to.
+     * @return Client which is processed by the chosen reactor.
+     * @throws ClientConnectionException when the client could not be created.
+     */
+    public ReactorClient createClient(String hostname, int port) throws ClientConnectionException {
+        return next().createClient(hostname, port);
+    }
+
+    /**
+     * @return <code>Reactor</code> which should be used for the next client.
+     */
+    public Reactor next() {
+        if (Assignment.LEAST_CONNECTIONS.equals(this.assignment)) {
+            Reactor selected = this.reactors[0];
+            for (int i = 1; i < this.reactors.length; i++) {
+                if (this.reactors[i].getNumberOfClients() < selected.getNumberOfClients()) {
+                    selected = this.reactors[i];
+                }
+            }
+            return selected;
+        }
+        return this.reactors[Math.floorMod(this.next.getAndIncrement(), this.reactors.length)];
+    }
+
+    public List<Reactor> getReactors() {
+        return Arrays.asList(this.reactors.clone());
+    }
+
+    public Assignment getAssignment() {
+        return this.assignment;
+    }
+
+    public int size() {
+        return this.reactors.length;
+    }
+
+    public void close() {
+        for (Reactor reactor : this.reactors) {
+            reactor.close();
+        }
+    }
+}
@@ -70,13 +70,28 @@ public abstract class SSLClient extends StompCommonClient {
 
     @Override
     public void updateInterestedOps() {
-        if (outbox.isEmpty() && (this.nioEngine == null || !this.nioEngine.handshakeInProgress())) {
-            getSelectionKey().interestOps(SelectionKey.OP_READ);
+        if (!hasOutgoing() && (this.nioEngine == null || !this.nioEngine.handshakeInProgress())) {
+            getSelectionKey().interestOps(getReadInterest());
         } else {
-            getSelectionKey().interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            getSelectionKey().interestOps(getReadInterest() | SelectionKey.OP_WRITE);
         }
     }
 
+    @Override
+    protected boolean hasOutgoing() {
+        return super.hasOutgoing() || this.nioEngine != null && this.nioEngine.hasPendingWrite();
+    }
+
+    @Override
+    protected void processOutgoing() throws IOException {
+        if (this.nioEngine != null && !this.nioEngine.flush()) {
+            // channel is still full, wait for next writable event
+            updateInterestedOps();
+            return;
+        }
+        super.processOutgoing();
+    }
+
     private Runnable pendingOperations() throws IOException, ClientConnectionException {
         if (this.nioEngine == null) {
             return null;
@@ -103,6 +118,15 @@ public abstract class SSLClient extends StompCommonClient {
         }
     }
 
+    @Override
+    protected void write(ByteBuffer[] buffs) throws IOException {
+        if (this.nioEngine != null) {
+            this.nioEngine.write(buffs);
+        } else {
+            channel.write(buffs);
+        }
+    }
+
     @Override
     public void process() throws IOException, ClientConnectionException {
         final Runnable op = pendingOperations();
@@ -153,8 +177,14 @@ public abstract class SSLClient extends StompCommonClient {
 
     @Override
     public void postDisconnect() {
-        if (this.nioEngine != null) {
-            this.nioEngine.clearBuff();
+        final SSLEngineNioHelper engine = this.nioEngine;
+        if (engine != null) {
+            engine.clearBuff();
+            // the reactor thread may still use the buffers, they are released once the current pass is done
+            scheduleTask(() -> {
+                engine.release();
+                return null;
+            });
         }
         this.nioEngine = null;
     }
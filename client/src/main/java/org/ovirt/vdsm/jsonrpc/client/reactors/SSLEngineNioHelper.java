@@ -16,6 +16,8 @@ import javax.net.ssl.SSLPeerUnverifiedException;
 import javax.net.ssl.SSLSession;
 
 import org.ovirt.vdsm.jsonrpc.client.ClientConnectionException;
+import org.ovirt.vdsm.jsonrpc.client.utils.BufferPool;
+import org.ovirt.vdsm.jsonrpc.client.utils.BufferPool.PooledBuffer;
 import org.ovirt.vdsm.jsonrpc.client.utils.OneTimeCallback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +27,9 @@ import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.logException;
 /**
  * Helper object responsible for low level ssl communication.
  *
+ * Application and packet buffers are direct buffers leased from {@link BufferPool} and need to be returned by
+ * {@link #release()} once the connection is gone.
+ *
  */
 public class SSLEngineNioHelper {
     protected static Logger log = LoggerFactory.getLogger(SSLEngineNioHelper.class);
@@ -36,6 +41,7 @@ public class SSLEngineNioHelper {
     private final ByteBuffer packetBuffer;
     private final ByteBuffer appPeerBuffer;
     private final ByteBuffer packatPeerBuffer;
+    private final PooledBuffer[] leases;
     private final SSLClient client;
     private OneTimeCallback callback;
 
@@ -46,10 +52,17 @@ public class SSLEngineNioHelper {
         this.callback = callback;
         this.client = client;
         SSLSession session = engine.getSession();
-        this.appBuffer = ByteBuffer.allocate(session.getApplicationBufferSize());
-        this.packetBuffer = ByteBuffer.allocate(session.getPacketBufferSize());
-        this.appPeerBuffer = ByteBuffer.allocate(session.getApplicationBufferSize());
-        this.packatPeerBuffer = ByteBuffer.allocate(session.getPacketBufferSize());
+        BufferPool pool = BufferPool.getInstance();
+        this.leases = new PooledBuffer[] {
+                pool.acquire(session.getApplicationBufferSize()),
+                pool.acquire(session.getPacketBufferSize()),
+                pool.acquire(session.getApplicationBufferSize()),
+                pool.acquire(session.getPacketBufferSize())
+        };
+        this.appBuffer = this.leases[0].getBuffer();
+        this.packetBuffer = this.leases[1].getBuffer();
+        this.appPeerBuffer = this.leases[2].getBuffer();
+        this.packatPeerBuffer = this.leases[3].getBuffer();
     }
 
     public void beginHandshake() throws SSLException {
@@ -101,25 +114,7 @@ public class SSLEngineNioHelper {
 
     public void write(ByteBuffer buff) throws IOException {
         if (buff != this.appBuffer) {
-            int attempts = 0;
-            while (buff.hasRemaining()) {
-                SSLEngineResult result = this.engine.wrap(buff, this.packetBuffer);
-                if (SSLEngineResult.Status.CLOSED == result.getStatus()) {
-                    return;
-                }
-                this.packetBuffer.flip();
-                while (this.packetBuffer.hasRemaining()) {
-                    int written = this.channel.write(this.packetBuffer);
-                    if (result.bytesConsumed() == 0 && written == 0) {
-                        attempts++;
-                        if (attempts > MAX_ATTEMPTS) {
-                            // looks like network issue we let higher logic handle timeout
-                            this.packetBuffer.clear();
-                        }
-                    }
-                }
-                this.packetBuffer.compact();
-            }
+            write(new ByteBuffer[] { buff });
             return;
         }
         this.appBuffer.flip();
@@ -132,6 +127,59 @@ public class SSLEngineNioHelper {
 
     }
 
+    /**
+     * Wraps provided buffers into as few ssl records as possible and writes them to the channel. Writing stops when
+     * the channel does not accept more data, wrapped bytes which were not sent are kept for {@link #flush()} and
+     * application data which was not wrapped stays in the buffers.
+     *
+     * @param buffs - Application data to be written.
+     * @throws IOException when networking issue occurs.
+     */
+    public void write(ByteBuffer[] buffs) throws IOException {
+        while (flush() && hasRemaining(buffs)) {
+            SSLEngineResult result = this.engine.wrap(buffs, this.packetBuffer);
+            if (SSLEngineResult.Status.CLOSED == result.getStatus()
+                    || result.bytesConsumed() == 0 && result.bytesProduced() == 0) {
+                // engine can't wrap more data now, it is retried with next writable event
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes wrapped bytes which were not sent yet.
+     *
+     * @return <code>true</code> when nothing is left to be sent.
+     * @throws IOException when networking issue occurs.
+     */
+    public boolean flush() throws IOException {
+        this.packetBuffer.flip();
+        try {
+            if (this.packetBuffer.hasRemaining()) {
+                this.channel.write(this.packetBuffer);
+            }
+            return !this.packetBuffer.hasRemaining();
+        } finally {
+            this.packetBuffer.compact();
+        }
+    }
+
+    /**
+     * @return <code>true</code> when wrapped bytes wait for the channel to accept them.
+     */
+    public boolean hasPendingWrite() {
+        return this.packetBuffer.position() != 0;
+    }
+
+    private static boolean hasRemaining(ByteBuffer[] buffs) {
+        for (ByteBuffer buff : buffs) {
+            if (buff.hasRemaining()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @SuppressWarnings("incomplete-switch")
     public Runnable process() throws IOException, ClientConnectionException {
         if (!handshakeInProgress()) {
@@ -173,6 +221,15 @@ public class SSLEngineNioHelper {
         this.packetBuffer.clear();
     }
 
+    /**
+     * Returns buffers to the pool, the helper can't be used afterwards.
+     */
+    public void release() {
+        for (PooledBuffer lease : this.leases) {
+            lease.release();
+        }
+    }
+
     public SSLEngine getSSLEngine() {
         return this.engine;
     }
@@ -0,0 +1,122 @@
+package org.ovirt.vdsm.jsonrpc.client.reactors.stomp;
+
+import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_CORRELATION_ID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.slf4j.MDC;
+
+/**
+ * Coalesces requests sent to a single connection within a short window into one JSON-RPC batch. The window opens
+ * with the first request and the batch is passed on when the window delay elapses or when the batch reaches its
+ * maximum size, whichever comes first. A window holding single request passes it on unchanged.
+ *
+ * The correlation id is captured from the <code>MDC</code> of the thread adding a request because the window may be
+ * passed on by the timer thread. Only requests with the same correlation id are merged, a request with a different
+ * one passes on the current window first.
+ */
+class RequestBatcher {
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "jsonrpc-request-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final BiConsumer<byte[], String> sink;
+    private List<byte[]> pending = new ArrayList<>();
+    private String correlationId;
+    private ScheduledFuture<?> window;
+
+    /**
+     * @param sink - receives each batch together with correlation id of its requests, it is called while holding the
+     *            batcher lock so batches keep their order.
+     */
+    RequestBatcher(BiConsumer<byte[], String> sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Adds a request to the current window.
+     *
+     * @param message - Serialized request or batch of requests.
+     * @param delay - Maximum time in microseconds the request waits for others.
+     * @param maxSize - Maximum number of messages in a batch.
+     */
+    synchronized void add(byte[] message, long delay, int maxSize) {
+        String correlationId = MDC.get(HEADER_CORRELATION_ID);
+        if (!this.pending.isEmpty() && !Objects.equals(this.correlationId, correlationId)) {
+            cancelAndFlush();
+        }
+        this.correlationId = correlationId;
+        this.pending.add(message);
+        if (this.pending.size() >= maxSize) {
+            cancelAndFlush();
+        } else if (this.pending.size() == 1) {
+            this.window = TIMER.schedule(this::flush, delay, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    private void cancelAndFlush() {
+        if (this.window != null) {
+            this.window.cancel(false);
+        }
+        flush();
+    }
+
+    /**
+     * Passes on requests of the current window without waiting.
+     */
+    synchronized void flush() {
+        this.window = null;
+        if (this.pending.isEmpty()) {
+            return;
+        }
+        List<byte[]> batch = this.pending;
+        this.pending = new ArrayList<>();
+        this.sink.accept(batch.size() == 1 ? batch.get(0) : merge(batch), this.correlationId);
+    }
+
+    /**
+     * Joins serialized requests into a single JSON array, elements of messages which already are batches are
+     * included directly.
+     */
+    static byte[] merge(List<byte[]> messages) {
+        int size = 1;
+        for (byte[] message : messages) {
+            size += message.length + 1;
+        }
+        byte[] batch = new byte[size];
+        int position = 0;
+        batch[position++] = '[';
+        for (byte[] message : messages) {
+            int from = 0;
+            int length = message.length;
+            if (isArray(message)) {
+                from = 1;
+                length -= 2;
+            }
+            if (length == 0) {
+                continue;
+            }
+            if (position > 1) {
+                batch[position++] = ',';
+            }
+            System.arraycopy(message, from, batch, position, length);
+            position += length;
+        }
+        batch[position++] = ']';
+        return position == size ? batch : Arrays.copyOf(batch, position);
+    }
+
+    private static boolean isArray(byte[] message) {
+        return message.length >= 2 && message[0] == '[' && message[message.length - 1] == ']';
+    }
+}
@@ -6,7 +6,6 @@ import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_D
 import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_HEART_BEAT;
 import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_HOST;
 import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_ID;
-import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_REPLY_TO;
 import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.isEmpty;
 import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.reduceGracePeriod;
 
@@ -78,12 +77,7 @@ public class StompClient extends PlainClient {
 
     @Override
     public void sendMessage(byte[] message) {
-        send(new Message().send()
-                .withHeader(HEADER_DESTINATION, this.getRequestQueue())
-                .withHeader(HEADER_REPLY_TO, getResponseQueue())
-                .withCorrelationId()
-                .withContent(message)
-                .build());
+        sendRequest(message);
     }
 
     @Override
@@ -9,6 +9,8 @@ public class StompClientPolicy extends ClientPolicy {
     private final String requestQueue;
     private final String responseQueue;
     private String eventQueue;
+    private volatile int batchDelay;
+    private volatile int maxBatchSize = 1;
 
     public StompClientPolicy(int retryTimeOut,
             int retryNumber,
@@ -56,6 +58,35 @@ public class StompClientPolicy extends ClientPolicy {
         this.eventQueue = eventQueue;
     }
 
+    public int getBatchDelay() {
+        return this.batchDelay;
+    }
+
+    public int getMaxBatchSize() {
+        return this.maxBatchSize;
+    }
+
+    /**
+     * Enables coalescing of requests sent within a short window into a single JSON-RPC batch frame so many small
+     * requests to the same host cost one frame and one reactor wakeup.
+     *
+     * @param batchDelay - <code>Integer</code> value which defines maximum time in microseconds a request waits
+     *            for others, <code>0</code> disables batching.
+     * @param maxBatchSize - <code>Integer</code> value which defines maximum number of requests in a batch, a full
+     *            batch is sent without waiting.
+     */
+    public void setBatching(int batchDelay, int maxBatchSize) {
+        if (batchDelay < 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch delay can't be negative and batch size needs to be positive");
+        }
+        this.batchDelay = batchDelay;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public boolean isBatching() {
+        return this.batchDelay > 0 && this.maxBatchSize > 1;
+    }
+
     @Override
     public ClientPolicy clone() {
         StompClientPolicy policy = new StompClientPolicy(this.getRetryTimeOut(),
@@ -66,6 +97,10 @@ public class StompClientPolicy extends ClientPolicy {
                 this.requestQueue,
                 this.responseQueue);
         policy.setEventQueue(this.eventQueue);
+        policy.setOutgoingBytesPerPass(this.getOutgoingBytesPerPass());
+        policy.setOutboxLimits(this.getOutboxBytes(), this.getOutboxFrames());
+        policy.setOutboxTimeout(this.getOutboxTimeout());
+        policy.setBatching(this.batchDelay, this.maxBatchSize);
         return policy;
     }
 }
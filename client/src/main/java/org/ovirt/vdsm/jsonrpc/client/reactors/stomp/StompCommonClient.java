@@ -1,12 +1,10 @@
 package org.ovirt.vdsm.jsonrpc.client.reactors.stomp;
 
-import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.END_OF_MESSAGE;
 import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_HEART_BEAT;
 import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_ID;
 import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_MESSAGE;
 import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_RECEIPT;
 import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEARTBEAT_FRAME;
-import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.UTF8;
 import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.addGracePeriod;
 import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.buildErrorResponse;
 import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.isEmpty;
@@ -16,9 +14,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
@@ -28,6 +24,8 @@ import org.ovirt.vdsm.jsonrpc.client.JsonRpcResponse;
 import org.ovirt.vdsm.jsonrpc.client.internal.ClientPolicy;
 import org.ovirt.vdsm.jsonrpc.client.reactors.Reactor;
 import org.ovirt.vdsm.jsonrpc.client.reactors.ReactorClient;
+import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.FrameDecoder;
+import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.FrameEncoder;
 import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message;
 import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.Command;
 import org.slf4j.Logger;
@@ -36,11 +34,13 @@ import org.slf4j.LoggerFactory;
 public abstract class StompCommonClient extends ReactorClient {
     public static final String DEFAULT_REQUEST_QUEUE = "jms.queue.requests";
     public static final String DEFAULT_RESPONSE_QUEUE = "jms.queue.reponses";
-    protected ByteBuffer headerBuffer = ByteBuffer.allocate(BUFFER_SIZE);
-    protected Message message;
+    protected volatile FrameDecoder decoder = new FrameDecoder();
+    protected final FrameEncoder encoder = new FrameEncoder();
     protected CountDownLatch connected;
     protected CountDownLatch subscribed;
     protected List<String> subscriptionIds = new ArrayList<>();
+    private final RequestBatcher batcher = new RequestBatcher(
+            (message, correlationId) -> send(buildSendFrame(message, correlationId)));
     private static final Logger LOG = LoggerFactory.getLogger(StompCommonClient.class);
 
     public StompCommonClient(Reactor reactor, String hostname, int port) {
@@ -48,14 +48,64 @@ public abstract class StompCommonClient extends ReactorClient {
     }
 
     public void send(byte[] message) {
-        logMessageInTrace(message);
-        outbox.addFirst(ByteBuffer.wrap(message));
+        send(new ByteBuffer[] { ByteBuffer.wrap(message) });
+    }
+
+    /**
+     * Queues a frame represented by several buffers which are written together.
+     *
+     * @param frame - Buffers forming the frame.
+     */
+    public void send(ByteBuffer[] frame) {
+        logMessageInTrace(frame);
+        queued(frame);
+        outbox.addFirst(frame);
         updateOps();
     }
 
-    private void logMessageInTrace(byte[] message) {
+    /**
+     * Builds SEND frame to the request queue without copying the message.
+     *
+     * @param message - Content of the frame.
+     * @return Buffers forming the frame.
+     */
+    protected ByteBuffer[] buildSendFrame(byte[] message) {
+        return this.encoder.send(getRequestQueue(), getResponseQueue(), message);
+    }
+
+    /**
+     * Builds SEND frame to the request queue with a correlation id captured when the message was submitted.
+     *
+     * @param message - Content of the frame.
+     * @param correlationId - Correlation id of the message or <code>null</code>.
+     * @return Buffers forming the frame.
+     */
+    protected ByteBuffer[] buildSendFrame(byte[] message, String correlationId) {
+        return this.encoder.send(getRequestQueue(), getResponseQueue(), message, correlationId);
+    }
+
+    /**
+     * Sends a request to the request queue. When batching is enabled by {@link StompClientPolicy#setBatching(int, int)}
+     * requests sent within the batching window are merged into a single frame.
+     *
+     * @param message - Serialized request.
+     */
+    protected void sendRequest(byte[] message) {
+        StompClientPolicy policy = (StompClientPolicy) this.policy;
+        if (policy.isBatching()) {
+            this.batcher.add(message, policy.getBatchDelay(), policy.getMaxBatchSize());
+        } else {
+            send(buildSendFrame(message));
+        }
+    }
+
+    private void logMessageInTrace(ByteBuffer[] frame) {
         if (LOG.isTraceEnabled()) {
-            LOG.trace("Message received: {}", new String(message, StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder();
+            for (ByteBuffer buffer : frame) {
+                builder.append(StandardCharsets.UTF_8.decode(buffer.duplicate()));
+            }
+            LOG.trace("Message received: {}", builder);
         }
     }
 
@@ -68,8 +118,10 @@ public abstract class StompCommonClient extends ReactorClient {
     }
 
     public void sendNow(byte[] message) {
-        logMessageInTrace(message);
-        outbox.addLast(ByteBuffer.wrap(message));
+        ByteBuffer[] frame = new ByteBuffer[] { ByteBuffer.wrap(message) };
+        logMessageInTrace(frame);
+        queued(frame);
+        outbox.addLast(frame);
         updateOps();
     }
 
@@ -93,12 +145,13 @@ public abstract class StompCommonClient extends ReactorClient {
             }
             LOG.error("Error Message recieved: " + error);
         } else if (Command.MESSAGE.toString().equals(message.getCommand())) {
-            super.emitOnMessageReceived(message.getContent());
+            super.emitOnMessageReceived(message.getContentBuffer());
         }
     }
 
     @Override
     public Future<Void> close() {
+        this.batcher.flush();
         clean();
         subscriptionIds.forEach(
                 subscriptionId -> send(new Message().unsubscribe().withHeader(HEADER_ID, subscriptionId).build()));
@@ -108,82 +161,30 @@ public abstract class StompCommonClient extends ReactorClient {
 
     @Override
     protected void processIncoming() throws IOException, ClientConnectionException {
-        if (this.ibuff == null) {
-            int read = read(headerBuffer);
-            if (read <= 0) {
-                return;
-            }
-            updateLastIncomingHeartbeat();
-
-            this.message = getMessage(headerBuffer, headerBuffer.position());
-            if (this.message == null) {
-                return;
-            }
-            int contentLength = this.message.getContentLength();
-            if (contentLength == -1) {
-                // only for control messages, all other have the header
-                // according to stomp spec: The commands and headers are encoded in UTF-8
-                String[] messages = new String(headerBuffer.array(), UTF8).split(END_OF_MESSAGE);
-                for (String msg : messages) {
-                    Message mesg = Message.parse((msg + END_OF_MESSAGE).getBytes(UTF8));
-                    int contLen = Objects.requireNonNull(mesg).getContentLength();
-                    if (contLen != -1 && contLen != mesg.getContent().length - 1) {
-                        this.message = mesg;
-                        break;
-                    }
-                    emitOnMessageReceived(mesg);
-                }
-                return;
-            }
-            int length = this.message.getContent().length;
-            if (contentLength == length - 1) {
-                emitOnMessageReceived(this.message);
-                return;
-            } else if (contentLength > length) {
-                this.ibuff = ByteBuffer.allocate(contentLength - length + 1);
-            } else {
-                byte[] content = this.message.getContent();
-                this.message.withContent(Arrays.copyOfRange(content, 0, contentLength + 1));
-                emitOnMessageReceived(this.message);
-                int from = contentLength + 1;
-                if (from > content.length) {
-                    from = content.length;
-                }
-                headerBuffer.put(Arrays.copyOfRange(content, from, content.length));
-                return;
-            }
-        }
-
-        read(this.ibuff);
-        updateLastIncomingHeartbeat();
-        int length = this.message.getContent().length + this.ibuff.position();
-        if (this.message.getContentLength() != length - 1) {
+        FrameDecoder decoder = this.decoder;
+        ByteBuffer buffer = decoder.getBuffer();
+        int position = buffer.position();
+        read(buffer);
+        // ssl helper may provide already unwrapped data even when nothing was read
+        if (buffer.position() == position) {
             return;
         }
-        this.message.withAdditionalContent(this.ibuff.array());
-        emitOnMessageReceived(this.message);
-    }
+        updateLastIncomingHeartbeat();
 
-    private Message getMessage(ByteBuffer buffer, int read) throws ClientConnectionException {
-        if (read > BUFFER_SIZE) {
-            read = BUFFER_SIZE;
+        Message message;
+        while ((message = decoder.decode()) != null) {
+            processMessage(message);
         }
-        byte[] array = new byte[read];
-        buffer.rewind();
-        buffer.get(array);
-        return Message.parse(array);
     }
 
     protected void clean() {
-        headerBuffer = ByteBuffer.allocate(BUFFER_SIZE);
-        this.ibuff = null;
-        this.message = null;
-    }
-
-    protected void emitOnMessageReceived(Message message) {
-        message.trimEndOfMessage();
-        clean();
-        processMessage(message);
+        FrameDecoder previous = this.decoder;
+        this.decoder = new FrameDecoder();
+        // the reactor thread may be reading into the buffer, it is released once the current pass is done
+        scheduleTask(() -> {
+            previous.release();
+            return null;
+        });
     }
 
     @Override
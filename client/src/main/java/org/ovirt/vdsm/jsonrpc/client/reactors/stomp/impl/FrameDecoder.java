@@ -0,0 +1,388 @@
+package org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl;
+
+import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.UTF8;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ovirt.vdsm.jsonrpc.client.ClientConnectionException;
+import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.Command;
+import org.ovirt.vdsm.jsonrpc.client.utils.BufferPool;
+import org.ovirt.vdsm.jsonrpc.client.utils.BufferPool.PooledBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Incremental stomp frame decoder.
+ *
+ * Incoming bytes are read directly into the buffer provided by {@link #getBuffer()} and {@link #decode()} walks
+ * over them once, looking for the command line, headers and the body in place. Partially received frames are kept
+ * between reads together with the position the scan stopped at so no byte is examined twice. Frame body is copied
+ * once into an array owned by the message so it can be handed over to other threads. Body of a frame with
+ * content-length of at least {@link #LARGE_BODY} bytes is copied into its array as it arrives and the buffer is
+ * enlarged up to {@link #LARGE_BODY_READ} bytes so the body is read in few passes. Body without content-length which does not fit the buffer is
+ * kept in a chain of buffers growing geometrically and copied once the frame terminator arrives, so the frame is
+ * received in linear time regardless of its size.
+ *
+ * The buffer is a direct buffer leased from {@link BufferPool} so the channel reads into it without an intermediate
+ * copy. It is leased on first use and returned by {@link #release()}.
+ *
+ * Instances are not thread safe and should be used by the reactor thread only.
+ *
+ */
+public class FrameDecoder {
+    public static final int INITIAL_CAPACITY = 8 * 1024;
+    public static final int LARGE_BODY = 64 * 1024;
+    public static final int LARGE_BODY_READ = 256 * 1024;
+    private static final Logger LOG = LoggerFactory.getLogger(FrameDecoder.class);
+    private static final byte EOL = '\n';
+    private static final byte CR = '\r';
+    private static final byte NUL = 0;
+    private static final byte SEPARATOR = ':';
+    private static final Command[] COMMANDS = Command.values();
+    private static final byte[][] COMMAND_NAMES = new byte[COMMANDS.length][];
+
+    static {
+        for (int i = 0; i < COMMANDS.length; i++) {
+            COMMAND_NAMES[i] = COMMANDS[i].toString().getBytes(UTF8);
+        }
+    }
+
+    private enum State {
+        COMMAND,
+        HEADERS,
+        BODY,
+        LARGE_BODY
+    }
+
+    private final int initialCapacity;
+    private final BufferPool pool;
+    private PooledBuffer lease;
+    private ByteBuffer buffer;
+    private boolean enlarged;
+    private State state = State.COMMAND;
+    private Message message;
+    // beginning of not consumed data
+    private int start;
+    // beginning of the line which is being decoded
+    private int lineStart;
+    // position from which the scan continues once more data arrives
+    private int scan;
+    private int bodyStart;
+    private int contentLength;
+    // array of a large body and number of its bytes received so far
+    private byte[] body;
+    private int filled;
+    // frame terminator following a large body was not skipped yet
+    private boolean terminator;
+    // received parts of a body without content-length which did not fit the buffer
+    private final List<PooledBuffer> chunkLeases = new ArrayList<>();
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private int chunked;
+
+    public FrameDecoder() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public FrameDecoder(int initialCapacity) {
+        this(initialCapacity, BufferPool.getInstance());
+    }
+
+    public FrameDecoder(int initialCapacity, BufferPool pool) {
+        this.initialCapacity = initialCapacity;
+        this.pool = pool;
+    }
+
+    /**
+     * Provides buffer which should be used to read data from the channel. Data which was already decoded is
+     * released and the buffer is compacted or enlarged so there is always space available.
+     *
+     * @return Buffer in write mode with at least one byte remaining.
+     */
+    public ByteBuffer getBuffer() {
+        if (this.buffer == null) {
+            lease(this.initialCapacity);
+            rewind();
+        } else if (this.start == this.buffer.position()) {
+            int wanted = this.state == State.LARGE_BODY
+                    ? Math.min(this.body.length - this.filled, LARGE_BODY_READ)
+                    : this.initialCapacity;
+            if (wanted > this.buffer.capacity()) {
+                // rest of a large body is read in bigger parts
+                this.lease.release();
+                lease(wanted);
+                this.enlarged = true;
+            } else if (this.enlarged && this.state != State.LARGE_BODY) {
+                // do not keep memory used by a large frame
+                this.lease.release();
+                lease(this.initialCapacity);
+            } else {
+                this.buffer.clear();
+            }
+            rewind();
+        } else if (!this.buffer.hasRemaining()) {
+            if (this.state == State.BODY && this.contentLength < 0) {
+                chain();
+            } else if (this.start == 0) {
+                PooledBuffer previous = this.lease;
+                ByteBuffer data = this.buffer;
+                lease(data.capacity() * 2);
+                this.enlarged = true;
+                data.flip();
+                this.buffer.put(data);
+                previous.release();
+            } else {
+                this.buffer.limit(this.buffer.position()).position(this.start);
+                this.buffer.compact();
+                move(this.start);
+            }
+        }
+        return this.buffer;
+    }
+
+    private void chain() {
+        ByteBuffer chunk = this.buffer.duplicate();
+        chunk.limit(this.buffer.position()).position(this.bodyStart);
+        PooledBuffer previous = this.lease;
+        lease(Math.min(chunk.capacity() * 2, BufferPool.MAX_CLASS_SIZE));
+        this.enlarged = true;
+        if (chunk.hasRemaining()) {
+            this.chunkLeases.add(previous);
+            this.chunks.add(chunk);
+            this.chunked += chunk.remaining();
+        } else {
+            previous.release();
+        }
+        rewind();
+    }
+
+    /**
+     * Decodes next complete frame from the data available in the buffer. Heart-beats are skipped.
+     *
+     * @return Decoded frame or <code>null</code> when more data is needed.
+     * @throws ClientConnectionException when unknown command is received.
+     */
+    public Message decode() throws ClientConnectionException {
+        ByteBuffer data = this.buffer;
+        if (data == null) {
+            return null;
+        }
+        int end = data.position();
+        while (true) {
+            switch (this.state) {
+            case COMMAND:
+                if (this.terminator && this.start < end) {
+                    if (data.get(this.start) == NUL) {
+                        this.start++;
+                    }
+                    this.terminator = false;
+                }
+                while (this.start < end && (data.get(this.start) == EOL || data.get(this.start) == CR)) {
+                    // heart-beat
+                    this.start++;
+                }
+                if (this.start == end) {
+                    return null;
+                }
+                this.lineStart = this.start;
+                this.scan = this.start;
+                this.state = State.HEADERS;
+                break;
+            case HEADERS:
+                int eol = indexOf(data, EOL, this.scan, end);
+                if (eol == -1) {
+                    this.scan = end;
+                    return null;
+                }
+                int lineEnd = eol;
+                if (lineEnd > this.lineStart && data.get(lineEnd - 1) == CR) {
+                    lineEnd--;
+                }
+                if (this.message == null) {
+                    this.message = new Message().setCommand(command(data, this.lineStart, lineEnd));
+                } else if (lineEnd == this.lineStart) {
+                    this.bodyStart = eol + 1;
+                    this.scan = this.bodyStart;
+                    this.contentLength = this.message.getContentLength();
+                    this.state = State.BODY;
+                } else {
+                    int separator = indexOf(data, SEPARATOR, this.lineStart, lineEnd);
+                    if (separator == -1) {
+                        this.message.withHeader(string(data, this.lineStart, lineEnd), "");
+                    } else {
+                        this.message.withHeader(string(data, this.lineStart, separator),
+                                string(data, separator + 1, lineEnd));
+                    }
+                }
+                this.lineStart = eol + 1;
+                this.scan = this.lineStart;
+                break;
+            case BODY:
+                if (this.contentLength >= LARGE_BODY) {
+                    startLargeBody();
+                    break;
+                }
+                int bodyEnd;
+                if (this.contentLength >= 0) {
+                    bodyEnd = this.bodyStart + this.contentLength;
+                    if (bodyEnd >= end) {
+                        return null;
+                    }
+                } else {
+                    bodyEnd = indexOf(data, NUL, this.scan, end);
+                    if (bodyEnd == -1) {
+                        this.scan = end;
+                        return null;
+                    }
+                }
+                return complete(bodyEnd);
+            case LARGE_BODY:
+                int length = Math.min(end - this.start, this.body.length - this.filled);
+                ByteBuffer received = data.duplicate();
+                received.limit(this.start + length).position(this.start);
+                received.get(this.body, this.filled, length);
+                this.start += length;
+                this.filled += length;
+                if (this.filled < this.body.length) {
+                    return null;
+                }
+                return completeLargeBody();
+            }
+        }
+    }
+
+    private void startLargeBody() {
+        this.body = new byte[this.contentLength];
+        this.filled = 0;
+        this.start = this.bodyStart;
+        this.state = State.LARGE_BODY;
+    }
+
+    private Message completeLargeBody() {
+        Message result = this.message.withContent(this.body);
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Raw message received: {}", new String(this.body, UTF8));
+        }
+        this.body = null;
+        this.terminator = true;
+        this.message = null;
+        this.state = State.COMMAND;
+        return result;
+    }
+
+    private Message complete(int bodyEnd) {
+        ByteBuffer body = this.buffer.duplicate();
+        body.limit(bodyEnd).position(this.bodyStart);
+        boolean chained = this.chunked > 0;
+        byte[] content = new byte[this.chunked + bodyEnd - this.bodyStart];
+        int offset = 0;
+        for (ByteBuffer chunk : this.chunks) {
+            int length = chunk.remaining();
+            chunk.get(content, offset, length);
+            offset += length;
+        }
+        releaseChunks();
+        body.get(content, offset, bodyEnd - this.bodyStart);
+        Message result = this.message.withContent(content);
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Raw message received: {}",
+                    chained ? new String(content, UTF8) : string(this.buffer, this.start, bodyEnd));
+        }
+        // skip the frame terminator
+        this.start = bodyEnd + 1;
+        this.message = null;
+        this.state = State.COMMAND;
+        return result;
+    }
+
+    /**
+     * Drops all buffered data including partially received frame.
+     */
+    public void reset() {
+        release();
+        this.body = null;
+        this.terminator = false;
+        this.message = null;
+        this.state = State.COMMAND;
+        rewind();
+    }
+
+    /**
+     * Returns the buffer to the pool, a new one is leased when the decoder is used again.
+     */
+    public void release() {
+        releaseChunks();
+        if (this.lease != null) {
+            this.lease.release();
+            this.lease = null;
+            this.buffer = null;
+        }
+    }
+
+    private void releaseChunks() {
+        this.chunkLeases.forEach(PooledBuffer::release);
+        this.chunkLeases.clear();
+        this.chunks.clear();
+        this.chunked = 0;
+    }
+
+    private void lease(int capacity) {
+        this.enlarged = false;
+        this.lease = this.pool.acquire(capacity);
+        this.buffer = this.lease.getBuffer();
+    }
+
+    private void rewind() {
+        this.start = 0;
+        this.lineStart = 0;
+        this.scan = 0;
+        this.bodyStart = 0;
+    }
+
+    private void move(int offset) {
+        this.start -= offset;
+        this.lineStart -= offset;
+        this.scan -= offset;
+        this.bodyStart -= offset;
+    }
+
+    private static String string(ByteBuffer data, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = data.get(from + i);
+        }
+        return new String(bytes, UTF8);
+    }
+
+    private static String command(ByteBuffer data, int from, int to) throws ClientConnectionException {
+        for (int i = 0; i < COMMANDS.length; i++) {
+            byte[] name = COMMAND_NAMES[i];
+            if (name.length == to - from && equals(name, data, from)) {
+                return COMMANDS[i].toString();
+            }
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Message received: " + string(data, from, to));
+        }
+        throw new ClientConnectionException("Unrecognized message received ");
+    }
+
+    private static boolean equals(byte[] name, ByteBuffer data, int from) {
+        for (int i = 0; i < name.length; i++) {
+            if (name[i] != data.get(from + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(ByteBuffer data, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (data.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
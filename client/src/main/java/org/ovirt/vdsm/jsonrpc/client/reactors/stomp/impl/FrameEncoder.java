@@ -0,0 +1,88 @@
+package org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl;
+
+import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_CONTENT_LENGTH;
+import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_CORRELATION_ID;
+import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_DESTINATION;
+import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_REPLY_TO;
+import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.UTF8;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.MDC;
+
+/**
+ * Encodes stomp SEND frames without copying the content.
+ *
+ * Command, destination and reply-to headers do not change between requests sent by a client so they are encoded
+ * once and reused. A frame is represented by an array of buffers: the constant headers, per request headers, the
+ * content as provided by the caller and the frame terminator. Such frame can be written to the channel by a single
+ * gathering write.
+ *
+ */
+public class FrameEncoder {
+    private static final byte[] END_OF_FRAME = new byte[] { 0 };
+
+    private static class Header {
+        private final String destination;
+        private final String replyTo;
+        private final byte[] bytes;
+
+        Header(String destination, String replyTo) {
+            this.destination = destination;
+            this.replyTo = replyTo;
+            this.bytes = (Message.Command.SEND + "\n"
+                    + HEADER_DESTINATION + ":" + destination + "\n"
+                    + HEADER_REPLY_TO + ":" + replyTo + "\n").getBytes(UTF8);
+        }
+
+        boolean matches(String destination, String replyTo) {
+            return Objects.equals(this.destination, destination) && Objects.equals(this.replyTo, replyTo);
+        }
+    }
+
+    private volatile Header header;
+
+    /**
+     * Encodes SEND frame for provided content. Correlation id is taken from the calling thread's <code>MDC</code>.
+     *
+     * @param destination - Queue to which the frame is sent.
+     * @param replyTo - Queue on which responses are expected.
+     * @param content - Body of the frame which is not copied.
+     * @return Buffers which together form the frame.
+     */
+    public ByteBuffer[] send(String destination, String replyTo, byte[] content) {
+        return send(destination, replyTo, content, MDC.get(HEADER_CORRELATION_ID));
+    }
+
+    /**
+     * Encodes SEND frame for provided content with a correlation id captured when the content was submitted.
+     *
+     * @param destination - Queue to which the frame is sent.
+     * @param replyTo - Queue on which responses are expected.
+     * @param content - Body of the frame which is not copied.
+     * @param correlationId - Value of the correlation id header, it is omitted when blank.
+     * @return Buffers which together form the frame.
+     */
+    public ByteBuffer[] send(String destination, String replyTo, byte[] content, String correlationId) {
+        Header header = this.header;
+        if (header == null || !header.matches(destination, replyTo)) {
+            header = new Header(destination, replyTo);
+            this.header = header;
+        }
+
+        StringBuilder builder = new StringBuilder(64);
+        if (StringUtils.isNotBlank(correlationId)) {
+            builder.append(HEADER_CORRELATION_ID).append(":").append(correlationId).append("\n");
+        }
+        builder.append(HEADER_CONTENT_LENGTH).append(":").append(content.length).append("\n\n");
+
+        return new ByteBuffer[] {
+                ByteBuffer.wrap(header.bytes),
+                ByteBuffer.wrap(builder.toString().getBytes(UTF8)),
+                ByteBuffer.wrap(content),
+                ByteBuffer.wrap(END_OF_FRAME)
+        };
+    }
+}
@@ -3,6 +3,7 @@ package org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl;
 import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.UTF8;
 import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.isEmpty;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -152,7 +153,7 @@ public class Message {
         return this;
     }
 
-    private Message setCommand(String command) {
+    Message setCommand(String command) {
         this.command = command;
         return this;
     }
@@ -196,6 +197,13 @@ public class Message {
         return content;
     }
 
+    /**
+     * @return View of the content backed by its array, it does not copy the content and must not be modified.
+     */
+    public ByteBuffer getContentBuffer() {
+        return ByteBuffer.wrap(this.content);
+    }
+
     public static Message parse(byte[] array) throws ClientConnectionException {
         if (LOG.isTraceEnabled()) {
             LOG.trace("Raw message received: {}", new String(array, UTF8));
@@ -0,0 +1,220 @@
+package org.ovirt.vdsm.jsonrpc.client.utils;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shared pool of direct buffers used for channel and ssl I/O. Direct buffers are read from and written to the
+ * channel without the copy the JDK makes for heap buffers, and reusing them avoids the cost of allocating direct
+ * memory for each connection.
+ *
+ * Buffers are kept in size classes which are powers of two so a buffer released by one connection fits requests of
+ * other connections. Requests larger than the biggest class get a direct buffer which is not pooled.
+ *
+ * Each buffer is leased as {@link PooledBuffer} which needs to be released once it is not used. A lease which
+ * becomes unreachable without being released is reported as leaked and its buffer is not reused.
+ */
+public final class BufferPool {
+    private static final Logger log = LoggerFactory.getLogger(BufferPool.class);
+    public static final int MIN_CLASS_SIZE = 4 * 1024;
+    public static final int MAX_CLASS_SIZE = 4 * 1024 * 1024;
+    // memory retained by free buffers of a single size class
+    private static final int CLASS_BYTES = 8 * 1024 * 1024;
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final BufferPool INSTANCE = new BufferPool();
+
+    private final SizeClass[] classes;
+    private final AtomicLong allocated = new AtomicLong();
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong released = new AtomicLong();
+    private final AtomicLong leaked = new AtomicLong();
+
+    public BufferPool() {
+        int count = Integer.numberOfTrailingZeros(MAX_CLASS_SIZE) - Integer.numberOfTrailingZeros(MIN_CLASS_SIZE) + 1;
+        this.classes = new SizeClass[count];
+        for (int i = 0; i < count; i++) {
+            int size = MIN_CLASS_SIZE << i;
+            this.classes[i] = new SizeClass(size, Math.max(1, CLASS_BYTES / size));
+        }
+    }
+
+    /**
+     * @return Pool shared by all connections.
+     */
+    public static BufferPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Leases a cleared direct buffer.
+     *
+     * @param capacity - Minimal capacity of the buffer.
+     * @return Lease of the buffer which needs to be released.
+     */
+    public PooledBuffer acquire(int capacity) {
+        SizeClass sizeClass = sizeClass(capacity);
+        ByteBuffer buffer = null;
+        if (sizeClass != null) {
+            buffer = sizeClass.free.poll();
+            if (buffer != null) {
+                sizeClass.count.decrementAndGet();
+            }
+        }
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(sizeClass != null ? sizeClass.size : capacity);
+            this.allocated.incrementAndGet();
+        }
+        buffer.clear();
+        this.acquired.incrementAndGet();
+        return new PooledBuffer(this, buffer, sizeClass);
+    }
+
+    private SizeClass sizeClass(int capacity) {
+        if (capacity > MAX_CLASS_SIZE) {
+            return null;
+        }
+        int size = capacity <= MIN_CLASS_SIZE ? MIN_CLASS_SIZE : Integer.highestOneBit(capacity - 1) << 1;
+        return this.classes[Integer.numberOfTrailingZeros(size) - Integer.numberOfTrailingZeros(MIN_CLASS_SIZE)];
+    }
+
+    /**
+     * @return Number of direct buffers allocated by the pool.
+     */
+    public long getAllocatedBuffers() {
+        return this.allocated.get();
+    }
+
+    /**
+     * @return Number of leases handed out.
+     */
+    public long getAcquiredBuffers() {
+        return this.acquired.get();
+    }
+
+    /**
+     * @return Number of leases released.
+     */
+    public long getReleasedBuffers() {
+        return this.released.get();
+    }
+
+    /**
+     * @return Number of leases which were garbage collected without being released.
+     */
+    public long getLeakedBuffers() {
+        return this.leaked.get();
+    }
+
+    /**
+     * @return Number of leases which are in use.
+     */
+    public long getOutstandingBuffers() {
+        return this.acquired.get() - this.released.get() - this.leaked.get();
+    }
+
+    /**
+     * @return Number of bytes kept by free buffers waiting for reuse.
+     */
+    public long getPooledBytes() {
+        long bytes = 0;
+        for (SizeClass sizeClass : this.classes) {
+            bytes += (long) sizeClass.size * sizeClass.count.get();
+        }
+        return bytes;
+    }
+
+    private static final class SizeClass {
+        private final int size;
+        private final int limit;
+        private final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger count = new AtomicInteger();
+
+        private SizeClass(int size, int limit) {
+            this.size = size;
+            this.limit = limit;
+        }
+
+        private void offer(ByteBuffer buffer) {
+            if (this.count.incrementAndGet() > this.limit) {
+                this.count.decrementAndGet();
+                return;
+            }
+            this.free.offer(buffer);
+        }
+    }
+
+    /**
+     * State of a lease reachable from the cleaner, it must not reference the lease itself.
+     */
+    private static final class Reclaim implements Runnable {
+        private final BufferPool pool;
+        private final SizeClass sizeClass;
+        private final int capacity;
+        private ByteBuffer buffer;
+        private volatile boolean released;
+
+        private Reclaim(BufferPool pool, ByteBuffer buffer, SizeClass sizeClass) {
+            this.pool = pool;
+            this.buffer = buffer;
+            this.capacity = buffer.capacity();
+            this.sizeClass = sizeClass;
+        }
+
+        @Override
+        public void run() {
+            ByteBuffer buffer = this.buffer;
+            this.buffer = null;
+            if (!this.released) {
+                // views of the buffer may still be in use so it is not reused
+                this.pool.leaked.incrementAndGet();
+                log.warn("Pooled buffer of {} bytes was not released", this.capacity);
+                return;
+            }
+            this.pool.released.incrementAndGet();
+            if (this.sizeClass != null) {
+                this.sizeClass.offer(buffer);
+            }
+        }
+    }
+
+    /**
+     * Lease of a pooled buffer. Neither the buffer nor its views can be used after the lease is released.
+     */
+    public static final class PooledBuffer {
+        private final ByteBuffer buffer;
+        private final Reclaim reclaim;
+        private final Cleaner.Cleanable cleanable;
+        private final AtomicBoolean active = new AtomicBoolean(true);
+
+        private PooledBuffer(BufferPool pool, ByteBuffer buffer, SizeClass sizeClass) {
+            this.buffer = buffer;
+            this.reclaim = new Reclaim(pool, buffer, sizeClass);
+            this.cleanable = CLEANER.register(this, this.reclaim);
+        }
+
+        public ByteBuffer getBuffer() {
+            return this.buffer;
+        }
+
+        /**
+         * Returns the buffer to the pool.
+         *
+         * @throws IllegalStateException when the lease was already released.
+         */
+        public void release() {
+            if (!this.active.compareAndSet(true, false)) {
+                throw new IllegalStateException("Buffer was already released");
+            }
+            this.reclaim.released = true;
+            this.cleanable.clean();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.ovirt.vdsm.jsonrpc.client.utils;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ovirt.vdsm.jsonrpc.client.BrokerCommandCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executors which can be used to notify {@link BrokerCommandCallback}s.
+ */
+public final class CallbackExecutors {
+    private static final Logger log = LoggerFactory.getLogger(CallbackExecutors.class);
+
+    private CallbackExecutors() {
+    }
+
+    /**
+     * Runs each callback in a new virtual thread so blocking callbacks do not need a sized pool. Virtual threads
+     * require JDK 21 or later, on older runtimes callbacks run in a cached pool of daemon threads.
+     *
+     * @return Executor starting a thread per callback.
+     */
+    public static Executor virtualThreadPerTask() {
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.info("Virtual threads are not available, callbacks run in a cached thread pool");
+            return cachedThreadPool();
+        }
+    }
+
+    /**
+     * @return Executor which reuses idle daemon threads and creates new ones when all are busy.
+     */
+    public static ExecutorService cachedThreadPool() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = task -> {
+            Thread thread = new Thread(task, "jsonrpc-callback-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newCachedThreadPool(factory);
+    }
+}
@@ -0,0 +1,116 @@
+package org.ovirt.vdsm.jsonrpc.client.utils;
+
+import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.UTF8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+/**
+ * Part of a received message containing single json value which was not parsed yet.
+ *
+ * It refers to the bytes of the message without copying them so it can be bound directly to the type requested by
+ * the caller. Fragments of buffers without an accessible array, such as direct or read only buffers, are read through
+ * a stream over the buffer.
+ *
+ */
+public final class JsonFragment {
+    private final byte[] array;
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int length;
+
+    public JsonFragment(byte[] array, int offset, int length) {
+        this.array = array;
+        this.buffer = null;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * @param buffer - Buffer containing the fragment between its position and limit, it is not copied.
+     */
+    public JsonFragment(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            this.array = buffer.array();
+            this.buffer = null;
+            this.offset = buffer.arrayOffset() + buffer.position();
+        } else {
+            this.array = null;
+            this.buffer = buffer.slice();
+            this.offset = 0;
+        }
+        this.length = buffer.remaining();
+    }
+
+    public int getLength() {
+        return this.length;
+    }
+
+    public JsonNode toJsonNode(ObjectMapper mapper) throws IOException {
+        if (this.array == null) {
+            return mapper.readTree(stream());
+        }
+        return mapper.readTree(this.array, this.offset, this.length);
+    }
+
+    public <T> T readValue(ObjectMapper mapper, TypeReference<T> type) throws IOException {
+        if (this.array == null) {
+            return mapper.readValue(stream(), type);
+        }
+        return mapper.readValue(this.array, this.offset, this.length, type);
+    }
+
+    public <T> T readValue(ObjectMapper mapper, Class<T> type) throws IOException {
+        if (this.array == null) {
+            return mapper.readValue(stream(), type);
+        }
+        return mapper.readValue(this.array, this.offset, this.length, type);
+    }
+
+    /**
+     * Looks up a top level field of an object without building its tree.
+     *
+     * @param mapper - Mapper providing the parser.
+     * @param field - Name of the field.
+     * @return Text of the field when it is a json scalar or <code>null</code> when the fragment is not an object, the
+     *         field is missing or it is not a scalar.
+     */
+    public String findScalar(ObjectMapper mapper, String field) {
+        try (JsonParser parser = this.array == null ? mapper.getFactory().createParser(stream())
+                : mapper.getFactory().createParser(this.array, this.offset, this.length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (field.equals(name)) {
+                    return token.isScalarValue() ? parser.getText() : null;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private ByteBufferBackedInputStream stream() {
+        return new ByteBufferBackedInputStream(this.buffer.duplicate());
+    }
+
+    @Override
+    public String toString() {
+        if (this.array == null) {
+            return UTF8.decode(this.buffer.duplicate()).toString();
+        }
+        return new String(this.array, this.offset, this.length, UTF8);
+    }
+}
@@ -7,6 +7,8 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Clock;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -14,7 +16,6 @@ import java.util.concurrent.TimeUnit;
 import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -43,15 +44,95 @@ public class JsonUtils {
     public static Map<String, Object> mapValues(JsonNode node) {
         Map<String, Object> map = null;
         try {
-            map = mapper.readValue(mapper.writeValueAsBytes(node),
-                    new TypeReference<HashMap<String, Object>>() {
-                    });
+            map = toMap(node, new HashMap<>());
         } catch (IOException e) {
             log.debug("Exception thrown during marshalling json", e);
         }
         return map;
     }
 
+    /**
+     * Copies fields of json object to provided map without serializing the object first. Values are converted by
+     * {@link #toValue(JsonNode)}.
+     *
+     * @param node - Json object to be converted.
+     * @param map - Map to which the fields are copied.
+     * @param <M> - Type of the map.
+     * @return Provided map or <code>null</code> when there is no node or it is json null.
+     * @throws IOException when the node is not an object.
+     */
+    public static <M extends Map<String, Object>> M toMap(JsonNode node, M map) throws IOException {
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        if (!node.isObject()) {
+            throw new IOException("Json object expected but " + node.getNodeType() + " found");
+        }
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            map.put(field.getKey(), toValue(field.getValue()));
+        }
+        return map;
+    }
+
+    /**
+     * Converts json node to java objects the same way as untyped binding with
+     * <code>USE_JAVA_ARRAY_FOR_JSON_ARRAY</code> enabled would do. Objects are converted to
+     * <code>LinkedHashMap</code>, arrays to <code>Object[]</code> and numbers to the smallest of
+     * <code>Integer</code>, <code>Long</code> and <code>BigInteger</code> or to <code>Double</code>.
+     *
+     * @param node - Json value to be converted.
+     * @return Java representation of the value.
+     * @throws IOException when the node contains a value which can't be converted.
+     */
+    public static Object toValue(JsonNode node) throws IOException {
+        if (node == null) {
+            return null;
+        }
+        switch (node.getNodeType()) {
+        case OBJECT:
+            return toMap(node, new LinkedHashMap<>());
+        case ARRAY:
+            Object[] array = new Object[node.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = toValue(node.get(i));
+            }
+            return array;
+        case STRING:
+            return node.textValue();
+        case NUMBER:
+            return toNumber(node);
+        case BOOLEAN:
+            return node.booleanValue();
+        case BINARY:
+            // binary values are written as base64 text
+            return node.asText();
+        case NULL:
+        case MISSING:
+            return null;
+        default:
+            return mapper.treeToValue(node, Object.class);
+        }
+    }
+
+    private static Number toNumber(JsonNode node) {
+        if (node.isIntegralNumber()) {
+            if (node.canConvertToInt()) {
+                return node.intValue();
+            }
+            if (node.canConvertToLong()) {
+                return node.longValue();
+            }
+            return node.bigIntegerValue();
+        }
+        if (node.isFloat()) {
+            // the value which would be written to the text
+            return Double.valueOf(node.asText());
+        }
+        return node.doubleValue();
+    }
+
     public static byte[] jsonToByteArray(JsonNode json) {
         final ByteArrayOutputStream os = new ByteArrayOutputStream();
         try {
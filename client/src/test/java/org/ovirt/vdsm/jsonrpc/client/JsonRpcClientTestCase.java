@@ -0,0 +1,214 @@
+package org.ovirt.vdsm.jsonrpc.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.jsonToByteArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.ovirt.vdsm.jsonrpc.client.internal.Call;
+import org.ovirt.vdsm.jsonrpc.client.internal.ClientPolicy;
+import org.ovirt.vdsm.jsonrpc.client.internal.ResponseTracker;
+import org.ovirt.vdsm.jsonrpc.client.reactors.ReactorClient;
+import org.ovirt.vdsm.jsonrpc.client.utils.CallbackExecutors;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class JsonRpcClientTestCase {
+
+    private static JsonRpcClient createClient(ReactorClient reactorClient, ResponseTracker tracker) {
+        when(reactorClient.isOpen()).thenReturn(true);
+        when(reactorClient.getClientId()).thenReturn("127.0.0.1:54321");
+        JsonRpcClient client = new JsonRpcClient(reactorClient, tracker);
+        client.setRetryPolicy(new ClientPolicy(180000, 3, 0));
+        return client;
+    }
+
+    @Test
+    public void testCallAsync() throws Exception {
+        ResponseTracker tracker = new ResponseTracker();
+        JsonRpcClient client = createClient(mock(ReactorClient.class), tracker);
+        JsonNode id = IntNode.valueOf(1);
+
+        CompletableFuture<String> status = client
+                .callAsync(new JsonRpcRequest("Host.getStats", JsonNodeFactory.instance.objectNode(), id))
+                .thenApply(response -> response.getResult().get("status").asText());
+        assertFalse(status.isDone());
+
+        ObjectNode result = JsonNodeFactory.instance.objectNode().put("status", "Up");
+        client.processResponse(new JsonRpcResponse(result, null, id));
+
+        assertEquals("Up", status.get(1, TimeUnit.SECONDS));
+        assertNull(tracker.removeCall(id));
+    }
+
+    @Test
+    public void testCancelAsync() {
+        ResponseTracker tracker = spy(new ResponseTracker());
+        JsonRpcClient client = createClient(mock(ReactorClient.class), tracker);
+        JsonNode id = IntNode.valueOf(2);
+
+        CompletableFuture<JsonRpcResponse> future =
+                client.callAsync(new JsonRpcRequest("Host.getStats", JsonNodeFactory.instance.objectNode(), id));
+        verify(tracker, never()).removeCall(id);
+
+        assertTrue(future.cancel(false));
+        assertTrue(future.isCancelled());
+        verify(tracker).removeCall(id);
+        assertNull(tracker.removeCall(id));
+    }
+
+    @Test
+    public void testCallAsyncSendFailure() throws ClientConnectionException {
+        ResponseTracker tracker = new ResponseTracker();
+        ReactorClient reactorClient = mock(ReactorClient.class);
+        JsonRpcClient client = createClient(reactorClient, tracker);
+        when(reactorClient.isOpen()).thenReturn(false);
+        doThrow(new ClientConnectionException("Connection failed")).when(reactorClient).connect();
+        JsonNode id = IntNode.valueOf(3);
+
+        CompletableFuture<JsonRpcResponse> future =
+                client.callAsync(new JsonRpcRequest("Host.getStats", JsonNodeFactory.instance.objectNode(), id));
+
+        assertTrue(future.isCompletedExceptionally());
+        assertNull(tracker.removeCall(id));
+    }
+
+    @Test
+    public void testBatchCall() throws Exception {
+        ResponseTracker tracker = new ResponseTracker();
+        ReactorClient reactorClient = mock(ReactorClient.class);
+        JsonRpcClient client = createClient(reactorClient, tracker);
+        JsonNode first = IntNode.valueOf(4);
+        JsonNode second = IntNode.valueOf(5);
+        List<JsonRpcRequest> requests =
+                Arrays.asList(new JsonRpcRequest("Host.getStats", JsonNodeFactory.instance.objectNode(), first),
+                        new JsonRpcRequest("Host.getCapabilities", JsonNodeFactory.instance.objectNode(), second));
+
+        List<CompletableFuture<JsonRpcResponse>> futures = client.batchCall(requests);
+        verify(reactorClient, times(1)).sendMessage(any(byte[].class));
+        verify(reactorClient).sendMessage(aryEq(jsonToByteArray(requests)));
+        assertEquals(2, futures.size());
+
+        client.processResponse(new JsonRpcResponse(JsonNodeFactory.instance.objectNode(), null, second));
+        assertFalse(futures.get(0).isDone());
+        assertEquals(second, futures.get(1).get(1, TimeUnit.SECONDS).getId());
+
+        client.processResponse(new JsonRpcResponse(JsonNodeFactory.instance.objectNode(), null, first));
+        assertEquals(first, futures.get(0).get(1, TimeUnit.SECONDS).getId());
+        assertNull(tracker.removeCall(first));
+    }
+
+    @Test
+    public void testBatchCallSendFailure() throws ClientConnectionException {
+        ResponseTracker tracker = new ResponseTracker();
+        ReactorClient reactorClient = mock(ReactorClient.class);
+        JsonRpcClient client = createClient(reactorClient, tracker);
+        when(reactorClient.isOpen()).thenReturn(false);
+        doThrow(new ClientConnectionException("Connection failed")).when(reactorClient).connect();
+        JsonNode first = IntNode.valueOf(6);
+        JsonNode second = IntNode.valueOf(7);
+
+        List<CompletableFuture<JsonRpcResponse>> futures = client.batchCall(
+                Arrays.asList(new JsonRpcRequest("Host.getStats", JsonNodeFactory.instance.objectNode(), first),
+                        new JsonRpcRequest("Host.getStats", JsonNodeFactory.instance.objectNode(), second)));
+
+        assertTrue(futures.get(0).isCompletedExceptionally());
+        assertTrue(futures.get(1).isCompletedExceptionally());
+        assertNull(tracker.removeCall(first));
+        assertNull(tracker.removeCall(second));
+    }
+
+    @Test
+    public void testCallRejectedWhenOutboxFull() throws ClientConnectionException {
+        ResponseTracker tracker = new ResponseTracker();
+        ReactorClient reactorClient = mock(ReactorClient.class);
+        JsonRpcClient client = createClient(reactorClient, tracker);
+        doThrow(new OutboxFullException("Outbox is full")).when(reactorClient).awaitWritable();
+        JsonNode id = IntNode.valueOf(8);
+
+        try {
+            client.call(new JsonRpcRequest("Host.getStats", JsonNodeFactory.instance.objectNode(), id));
+            fail();
+        } catch (OutboxFullException expected) {
+        }
+        CompletableFuture<JsonRpcResponse> future =
+                client.callAsync(new JsonRpcRequest("Host.getStats", JsonNodeFactory.instance.objectNode(), id));
+
+        assertTrue(future.isCompletedExceptionally());
+        verify(reactorClient, never()).sendMessage(any(byte[].class));
+        assertNull(tracker.removeCall(id));
+    }
+
+    @Test
+    public void testCallbackExecuted() {
+        JsonNode id = IntNode.valueOf(1);
+        BrokerCommandCallback callback = mock(BrokerCommandCallback.class);
+        Call call = new Call(new JsonRpcRequest("Host.getStats", JsonNodeFactory.instance.objectNode(), id), callback);
+        ResponseTracker tracker = mock(ResponseTracker.class);
+        when(tracker.removeCall(id)).thenReturn(call);
+        List<Runnable> tasks = new ArrayList<>();
+        Executor executor = task -> {
+            tasks.add(task);
+            task.run();
+        };
+
+        JsonRpcClient client = new JsonRpcClient(mock(ReactorClient.class), tracker);
+        client.setCallbackExecutor(executor);
+        client.processResponse(new JsonRpcResponse(JsonNodeFactory.instance.objectNode(), null, id));
+
+        assertEquals(1, tasks.size());
+        verify(callback).onResponse(anyMap());
+        verify(callback, never()).onFailure(anyMap());
+        verify(tracker).setCallbackExecutor(executor);
+    }
+
+    @Test
+    public void testThreadPerCallback() throws InterruptedException {
+        Executor executor = CallbackExecutors.virtualThreadPerTask();
+        int callbacks = 10;
+        CountDownLatch started = new CountDownLatch(callbacks);
+        CountDownLatch released = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(callbacks);
+
+        // callbacks blocking at the same time do not wait for each other
+        for (int i = 0; i < callbacks; i++) {
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                finished.countDown();
+            });
+        }
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        released.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -3,11 +3,16 @@ package org.ovirt.vdsm.jsonrpc.client;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
@@ -21,6 +26,8 @@ public class ReactorClientTestCase {
 
         private boolean open;
         private boolean isInInit;
+        private int capacity;
+        private ByteArrayOutputStream written = new ByteArrayOutputStream();
 
         public TestReactorClient(Reactor reactor, String hostname, int port) {
             super(reactor, hostname, port);
@@ -45,6 +52,31 @@ public class ReactorClientTestCase {
 
         @Override
         protected void write(ByteBuffer buff) {
+            int length = Math.min(buff.remaining(), this.capacity);
+            byte[] bytes = new byte[length];
+            buff.get(bytes);
+            this.written.write(bytes, 0, length);
+            this.capacity -= length;
+        }
+
+        public void queue(byte[] message) {
+            this.outbox.addFirst(new ByteBuffer[] { ByteBuffer.wrap(message) });
+        }
+
+        public void emit(byte[] message) {
+            emitOnMessageReceived(message);
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public byte[] getWritten() {
+            return this.written.toByteArray();
+        }
+
+        public boolean isOutgoing() {
+            return this.hasOutgoing();
         }
 
         @Override
@@ -159,4 +191,94 @@ public class ReactorClientTestCase {
         assertTrue(client.isOpen());
         assertTrue(client.isHalf());
     }
-}
\ No newline at end of file
+
+    private static byte[] queue(TestReactorClient client, int frames, int size) {
+        byte[] expected = new byte[frames * size];
+        for (int i = 0; i < frames; i++) {
+            byte[] frame = new byte[size];
+            Arrays.fill(frame, (byte) i);
+            System.arraycopy(frame, 0, expected, i * size, size);
+            client.queue(frame);
+        }
+        return expected;
+    }
+
+    @Test
+    public void testEmittedViewBackedByArray() {
+        Reactor reactor = mock(Reactor.class);
+        TestReactorClient client = new TestReactorClient(reactor, "localhost", 0);
+        byte[] message = "{}".getBytes();
+        client.addEventListener(new ReactorClient.MessageListener() {
+
+            @Override
+            public void onMessageReceived(byte[] content) {
+            }
+
+            @Override
+            public void onMessageReceived(ByteBuffer view, Runnable release) {
+                // the parser reads views with an accessible array without a stream
+                assertTrue(view.hasArray());
+                assertSame(message, view.array());
+                assertEquals(message.length, client.getPendingInboundBytes());
+                release.run();
+            }
+        });
+
+        client.emit(message);
+        assertEquals(0, client.getPendingInboundBytes());
+    }
+
+    @Test
+    public void testDrainOutbox() throws IOException, ClientConnectionException {
+        Reactor reactor = mock(Reactor.class);
+        TestReactorClient client = new TestReactorClient(reactor, "localhost", 0);
+        client.setClientPolicy(new ClientPolicy(0, 0, 1000000, 1000000));
+        client.setCapacity(Integer.MAX_VALUE);
+        byte[] expected = queue(client, 500, 100);
+
+        client.process();
+
+        assertArrayEquals(expected, client.getWritten());
+        assertFalse(client.isOutgoing());
+    }
+
+    @Test
+    public void testOutgoingBudget() throws IOException, ClientConnectionException {
+        Reactor reactor = mock(Reactor.class);
+        TestReactorClient client = new TestReactorClient(reactor, "localhost", 0);
+        ClientPolicy policy = new ClientPolicy(0, 0, 1000000, 1000000);
+        policy.setOutgoingBytesPerPass(250);
+        client.setClientPolicy(policy);
+        client.setCapacity(Integer.MAX_VALUE);
+        byte[] expected = queue(client, 10, 100);
+
+        client.process();
+        assertEquals(300, client.getWritten().length);
+        assertTrue(client.isOutgoing());
+
+        client.process();
+        client.process();
+        client.process();
+        assertArrayEquals(expected, client.getWritten());
+        assertFalse(client.isOutgoing());
+    }
+
+    @Test
+    public void testPartialWrite() throws IOException, ClientConnectionException {
+        Reactor reactor = mock(Reactor.class);
+        TestReactorClient client = new TestReactorClient(reactor, "localhost", 0);
+        client.setClientPolicy(new ClientPolicy(0, 0, 1000000, 1000000));
+        client.setCapacity(150);
+        byte[] expected = queue(client, 3, 100);
+
+        client.process();
+        assertEquals(150, client.getWritten().length);
+
+        client.setCapacity(Integer.MAX_VALUE);
+        client.queue(new byte[] { 9 });
+        client.process();
+        assertArrayEquals(expected, Arrays.copyOf(client.getWritten(), 300));
+        assertEquals(301, client.getWritten().length);
+        assertFalse(client.isOutgoing());
+    }
+}
@@ -1,8 +1,12 @@
 package org.ovirt.vdsm.jsonrpc.client.events;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
 import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
 
 public class EventTestUtils {
 
@@ -17,6 +21,48 @@ public class EventTestUtils {
         }
     }
 
+    /**
+     * Executor which runs tasks in the submitting thread so events are delivered before the submit returns.
+     */
+    static class DirectExecutorService extends AbstractExecutorService {
+        private volatile boolean shutdown;
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+            this.shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            this.shutdown = true;
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return this.shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return this.shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return this.shutdown;
+        }
+    }
+
+    public static EventPublisher createDirectPublisher() {
+        return new EventPublisher(new DirectExecutorService(), EVENT_TIMEOUT_IN_HOURS);
+    }
+
     public static EventPublisher createPublisher() {
         return new EventPublisher(new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
                 ResponseForkJoinWorkerThread::new,
@@ -1,12 +1,15 @@
 package org.ovirt.vdsm.jsonrpc.client.events;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.parse;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -270,4 +273,78 @@ public class MatcherTestCase {
         Set<SubscriptionHolder> holders = matcher.match(event);
         assertEquals(1, holders.size());
     }
+
+    @Test
+    public void testSharedUidSubscription() {
+        SubscriptionHolder holder = mock(SubscriptionHolder.class);
+        when(holder.getId()).thenReturn("*|*|*|uuid");
+        SubscriptionHolder sameHolder = mock(SubscriptionHolder.class);
+        when(sameHolder.getId()).thenReturn("*|virt|*|uuid");
+
+        SubscriptionMatcher matcher = new SubscriptionMatcher();
+        matcher.add(holder);
+        matcher.add(sameHolder);
+
+        JsonRpcEvent event = mock(JsonRpcEvent.class);
+        when(event.getMethod()).thenReturn("localhost|virt|VM_status|uuid");
+
+        Set<SubscriptionHolder> holders = matcher.match(event);
+        assertEquals(2, holders.size());
+
+        matcher.remove(holder);
+        holders = matcher.match(event);
+        assertEquals(1, holders.size());
+        assertTrue(holders.contains(sameHolder));
+    }
+
+    @Test
+    public void testRemoveSegmentSubscription() {
+        SubscriptionHolder holder = mock(SubscriptionHolder.class);
+        when(holder.getId()).thenReturn("localhost|virt|*|*");
+        SubscriptionHolder differentHolder = mock(SubscriptionHolder.class);
+        when(differentHolder.getId()).thenReturn("*|virt|VM_status|*");
+
+        SubscriptionMatcher matcher = new SubscriptionMatcher();
+        matcher.add(holder);
+        matcher.add(differentHolder);
+
+        JsonRpcEvent event = mock(JsonRpcEvent.class);
+        when(event.getMethod()).thenReturn("localhost|virt|VM_status|uuid");
+
+        List<SubscriptionHolder> matched = new ArrayList<>();
+        matcher.match(event, (matchedHolder, matchedEvent) -> matched.add(matchedHolder));
+        assertEquals(2, matched.size());
+
+        matcher.remove(holder);
+        assertEquals(Collections.singleton(differentHolder), matcher.match(event));
+        assertEquals(Collections.singletonList(differentHolder), matcher.getAllSubscriptions());
+    }
+
+    @Test
+    public void testSegmentsMatchedByPosition() {
+        SubscriptionHolder holder = mock(SubscriptionHolder.class);
+        when(holder.getId()).thenReturn("*|virt|VM_status|*");
+
+        SubscriptionMatcher matcher = new SubscriptionMatcher();
+        matcher.add(holder);
+
+        JsonRpcEvent event = mock(JsonRpcEvent.class);
+        when(event.getMethod()).thenReturn("localhost|VM_status|virt|uuid");
+
+        assertEquals(0, matcher.match(event).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongEventFormat() {
+        SubscriptionHolder holder = mock(SubscriptionHolder.class);
+        when(holder.getId()).thenReturn("*|virt|*|*");
+
+        SubscriptionMatcher matcher = new SubscriptionMatcher();
+        matcher.add(holder);
+
+        JsonRpcEvent event = mock(JsonRpcEvent.class);
+        when(event.getMethod()).thenReturn("localhost|virt|VM_status|");
+
+        matcher.match(event);
+    }
 }
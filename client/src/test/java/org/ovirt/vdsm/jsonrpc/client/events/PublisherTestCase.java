@@ -1,24 +1,41 @@
 package org.ovirt.vdsm.jsonrpc.client.events;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.ovirt.vdsm.jsonrpc.client.events.EventTestUtils.createDirectPublisher;
 import static org.ovirt.vdsm.jsonrpc.client.events.EventTestUtils.createPublisher;
+import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.UTF8;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Flow;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.ovirt.vdsm.jsonrpc.client.ClientConnectionException;
 import org.ovirt.vdsm.jsonrpc.client.EventDecomposer;
 import org.ovirt.vdsm.jsonrpc.client.JsonRpcEvent;
+import org.ovirt.vdsm.jsonrpc.client.internal.MessageEnvelope;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class PublisherTestCase {
 
@@ -190,6 +207,157 @@ public class PublisherTestCase {
         assertEquals(2, numberOfEvents);
     }
 
+    @Test
+    public void testOverflowSignalled() {
+        EventPublisher publisher = createPublisher();
+
+        EventSubscriber subscriber = mock(EventSubscriber.class);
+        when(subscriber.getSubscriptionId()).thenReturn("*|*|*|uuid");
+        when(subscriber.getQueueCapacity()).thenReturn(1);
+        when(subscriber.getOverflowPolicy()).thenReturn(OverflowPolicy.ERROR);
+        publisher.subscribe(subscriber);
+
+        JsonRpcEvent event = createEvent(System.nanoTime());
+        publisher.process(event);
+        publisher.process(event);
+        publisher.process(event);
+
+        verify(subscriber, timeout(500).times(1)).onError(any(ClientConnectionException.class));
+        assertEquals(1, publisher.getQueuedEvents());
+        assertEquals(2, publisher.getDroppedEvents());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBatchDelivery() throws NoSuchFieldException, SecurityException, IllegalArgumentException,
+            IllegalAccessException {
+        EventPublisher publisher = createPublisher();
+
+        JsonRpcEvent event = createEvent(System.nanoTime());
+        EventDecomposer decomposer = mock(EventDecomposer.class);
+        Map<String, Object> map = new HashMap<>();
+        when(decomposer.decompose(event)).thenReturn(map);
+        setField(publisher, "decomposer", decomposer);
+
+        EventSubscriber subscriber = mock(EventSubscriber.class);
+        when(subscriber.getSubscriptionId()).thenReturn("*|*|test|*");
+        when(subscriber.getBatchSize()).thenReturn(4);
+        ArgumentCaptor<Flow.Subscription> captor = ArgumentCaptor.forClass(Flow.Subscription.class);
+
+        publisher.subscribe(subscriber);
+        verify(subscriber).onSubscribe(captor.capture());
+
+        for (int i = 0; i < 10; i++) {
+            publisher.process(event);
+        }
+        captor.getValue().request(6);
+
+        ArgumentCaptor<List<Map<String, Object>>> batches = ArgumentCaptor.forClass(List.class);
+        verify(subscriber, timeout(1000).times(2)).onNextBatch(batches.capture());
+        assertEquals(4, batches.getAllValues().get(0).size());
+        assertEquals(2, batches.getAllValues().get(1).size());
+        verify(subscriber, never()).onNext(map);
+        assertEquals(4, publisher.getQueuedEvents());
+    }
+
+    @Test
+    public void testSerialDelivery() throws IOException, InterruptedException {
+        EventPublisher publisher = createPublisher();
+        int events = 200;
+        CountDownLatch latch = new CountDownLatch(events);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger overlapping = new AtomicInteger();
+        List<Object> received = Collections.synchronizedList(new ArrayList<>());
+
+        publisher.subscribe(new EventSubscriber("*|testcase|*|*") {
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Map<String, Object> map) {
+                if (active.incrementAndGet() > 1) {
+                    overlapping.incrementAndGet();
+                }
+                received.add(map.get("seq"));
+                Thread.yield();
+                active.decrementAndGet();
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        for (int i = 0; i < events; i++) {
+            publisher.publish("local|testcase|test|uuid", Collections.singletonMap("seq", i));
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(0, overlapping.get());
+        for (int i = 0; i < events; i++) {
+            assertEquals(i, received.get(i));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testSharedDecomposition() throws IOException {
+        EventPublisher publisher = createDirectPublisher();
+        byte[] message = ("{\"jsonrpc\": \"2.0\", \"method\": \"local|virt|VM_status|1\", \"params\": "
+                + "{\"status\": \"Up\", \"disk\": {\"vda\": {\"size\": 1}}, \"nics\": [{\"name\": \"eth0\"}]}}")
+                .getBytes(UTF8);
+        JsonRpcEvent event = JsonRpcEvent.fromEnvelope(MessageEnvelope.parse(new ObjectMapper(), message).get(0));
+        JsonRpcEvent unmatched = JsonRpcEvent.fromEnvelope(MessageEnvelope.parse(new ObjectMapper(), message).get(0));
+        unmatched.setMethod("local|storage|VM_status|1");
+
+        EventSubscriber subscriber = mock(EventSubscriber.class);
+        when(subscriber.getSubscriptionId()).thenReturn("*|virt|*|*");
+        EventSubscriber otherSubscriber = mock(EventSubscriber.class);
+        when(otherSubscriber.getSubscriptionId()).thenReturn("*|*|VM_status|1");
+        publisher.subscribe(subscriber);
+        publisher.subscribe(otherSubscriber);
+
+        publisher.process(event);
+        publisher.process(unmatched);
+        ArgumentCaptor<Flow.Subscription> captor = ArgumentCaptor.forClass(Flow.Subscription.class);
+        verify(subscriber).onSubscribe(captor.capture());
+        captor.getValue().request(1);
+        verify(otherSubscriber).onSubscribe(captor.capture());
+        captor.getValue().request(1);
+
+        ArgumentCaptor<Map<String, Object>> maps = ArgumentCaptor.forClass(Map.class);
+        verify(subscriber).onNext(maps.capture());
+        verify(otherSubscriber).onNext(maps.capture());
+        Map<String, Object> map = maps.getValue();
+        assertSame(maps.getAllValues().get(0), map);
+        assertEquals("Up", map.get("status"));
+        // params were neither parsed to a tree for the subscribers nor for the event nobody subscribed to
+        assertNotNull(event.getRawParams());
+        assertNotNull(unmatched.getRawParams());
+
+        assertUnmodifiable(map);
+        Map<String, Object> disk = (Map<String, Object>) map.get("disk");
+        assertUnmodifiable(disk);
+        assertUnmodifiable((Map<String, Object>) disk.get("vda"));
+        assertUnmodifiable((Map<String, Object>) ((Object[]) map.get("nics"))[0]);
+    }
+
+    private static void assertUnmodifiable(Map<String, Object> map) {
+        try {
+            map.put("status", "Down");
+            fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
     private JsonRpcEvent createEvent(long arrivalTime) {
         JsonRpcEvent event = mock(JsonRpcEvent.class);
         when(event.getMethod()).thenReturn("local|testcase|test|uuid");
@@ -4,10 +4,14 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.UTF8;
 import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.buildErrorResponse;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Flow;
@@ -110,6 +114,110 @@ public class ResponseWorkerTestCase {
         processMessage(subscriber, response.toByteArray(), latch);
     }
 
+    @Test
+    public void testLanes() throws InterruptedException {
+        ResponseWorker worker = new ResponseWorker(1, EVENT_TIMEOUT_IN_HOURS, 2);
+        try {
+            final int events = 100;
+            final CountDownLatch latch = new CountDownLatch(2 * events);
+            EventSubscriber subscriber = new EventSubscriber("*|virt|VM_status|*") {
+
+                private Flow.Subscription subscription;
+
+                @Override
+                public void onSubscribe(Flow.Subscription s) {
+                    this.subscription = s;
+                    this.subscription.request(2 * events);
+                }
+
+                @Override
+                public void onNext(Map<String, Object> map) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    fail();
+                }
+
+                @Override
+                public void onComplete() {
+                }
+            };
+            worker.getPublisher().subscribe(subscriber);
+
+            MessageListener first = register(worker, "host1");
+            MessageListener second = register(worker, "host2");
+            for (int i = 0; i < events; i++) {
+                byte[] message = ("{\"params\": {\"id\": " + i + "}, \"jsonrpc\": \"2.0\", \"method\":"
+                        + " \"|virt|VM_status|" + i + "\"}").getBytes(UTF8);
+                first.onMessageReceived(message);
+                second.onMessageReceived(message);
+            }
+
+            assertEquals(2, worker.getLanes());
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            worker.close();
+        }
+    }
+
+    @Test
+    public void testBufferMessageReleased() throws InterruptedException {
+        final CountDownLatch released = new CountDownLatch(1);
+        ByteBuffer message = ByteBuffer.wrap("{\"jsonrpc\": \"2.0\", \"result\": {\"status\": \"Up\"}, \"id\": 1}"
+                .getBytes(UTF8)).asReadOnlyBuffer();
+
+        register(this.worker, "host").onMessageReceived(message, released::countDown);
+
+        assertTrue(released.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testReadingSuspendedAboveHighWatermark() throws InterruptedException {
+        final CountDownLatch proceed = new CountDownLatch(1);
+        byte[] message = "{\"jsonrpc\": \"2.0\", \"result\": {\"status\": \"Up\"}, \"id\": 1}".getBytes(UTF8);
+        ReactorClient client = mock(ReactorClient.class);
+        ArgumentCaptor<MessageListener> argument = ArgumentCaptor.forClass(MessageListener.class);
+        this.worker.setWatermarks(message.length + 1, 0);
+        this.worker.register(client);
+        verify(client).addEventListener(argument.capture());
+        MessageListener listener = argument.getValue();
+
+        // the lane waits until the first message is released
+        listener.onMessageReceived(ByteBuffer.wrap(message), () -> {
+            try {
+                proceed.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        verify(client, never()).suspendReading();
+        listener.onMessageReceived(message);
+        verify(client).suspendReading();
+        assertEquals(2 * message.length, this.worker.getQueuedBytes());
+
+        proceed.countDown();
+        verify(client, timeout(5000)).resumeReading();
+        assertEquals(0, this.worker.getQueuedBytes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWatermarks() {
+        this.worker.setWatermarks(10, 20);
+    }
+
+    private MessageListener register(ResponseWorker worker, String hostname) {
+        ReactorClient client = mock(ReactorClient.class);
+        when(client.getHostname()).thenReturn(hostname);
+        ArgumentCaptor<MessageListener> argument = ArgumentCaptor.forClass(MessageListener.class);
+
+        worker.register(client);
+
+        verify(client).addEventListener(argument.capture());
+        return argument.getValue();
+    }
+
     private void processMessage(EventSubscriber subscriber, byte[] message, CountDownLatch waitingLatch)
             throws InterruptedException {
         ReactorClient client = mock(ReactorClient.class);
@@ -0,0 +1,265 @@
+package org.ovirt.vdsm.jsonrpc.client.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.ovirt.vdsm.jsonrpc.client.JsonRpcEvent;
+import org.ovirt.vdsm.jsonrpc.client.internal.MessageEnvelope;
+import org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class SubscriptionHolderTestCase {
+
+    private static SubscriptionHolder createHolder(int capacity, OverflowPolicy policy) {
+        EventSubscriber subscriber = mock(EventSubscriber.class);
+        when(subscriber.getSubscriptionId()).thenReturn("*|testcase|*|*");
+        when(subscriber.getQueueCapacity()).thenReturn(capacity);
+        when(subscriber.getOverflowPolicy()).thenReturn(policy);
+        SubscriptionHolder holder = new SubscriptionHolder(subscriber);
+        holder.incrementCount(Long.MAX_VALUE);
+        return holder;
+    }
+
+    private static SubscriptionHolder createCoalescingHolder(String field) {
+        EventSubscriber subscriber = mock(EventSubscriber.class);
+        when(subscriber.getSubscriptionId()).thenReturn("*|testcase|*|*");
+        when(subscriber.isCoalescing()).thenReturn(true);
+        when(subscriber.getCoalescingField()).thenReturn(field);
+        SubscriptionHolder holder = new SubscriptionHolder(subscriber);
+        holder.incrementCount(Long.MAX_VALUE);
+        return holder;
+    }
+
+    private static JsonRpcEvent createEvent(String uid, String vmId) {
+        ObjectNode params = JsonNodeFactory.instance.objectNode();
+        params.put("vmId", vmId);
+        return new JsonRpcEvent("local|testcase|test|" + uid, params);
+    }
+
+    private static JsonRpcEvent receiveEvent(String vmId) throws IOException {
+        String message = "{\"jsonrpc\": \"2.0\", \"method\": \"local|testcase|test|*\", \"params\": "
+                + "{\"status\": {\"state\": \"Up\"}, \"vmId\": \"" + vmId + "\"}}";
+        return JsonRpcEvent.fromEnvelope(
+                MessageEnvelope.parse(new ObjectMapper(), message.getBytes(JsonUtils.UTF8)).get(0));
+    }
+
+    private static JsonRpcEvent createEvent(String uid) {
+        JsonRpcEvent event = mock(JsonRpcEvent.class);
+        when(event.getMethod()).thenReturn("local|testcase|test|" + uid);
+        return event;
+    }
+
+    @Test
+    public void testUnbounded() {
+        SubscriptionHolder holder = createHolder(0, null);
+        for (int i = 0; i < 100; i++) {
+            holder.putEvent(createEvent("uuid"));
+        }
+        assertEquals(100, holder.getNumberOfEvents());
+        assertEquals(0, holder.getDroppedEvents());
+    }
+
+    @Test
+    public void testDropOldest() {
+        SubscriptionHolder holder = createHolder(2, OverflowPolicy.DROP_OLDEST);
+        JsonRpcEvent first = createEvent("uuid1");
+        JsonRpcEvent second = createEvent("uuid2");
+        JsonRpcEvent third = createEvent("uuid3");
+        holder.putEvent(first);
+        holder.putEvent(second);
+        holder.putEvent(third);
+
+        assertEquals(2, holder.getNumberOfEvents());
+        assertEquals(1, holder.getDroppedEvents());
+        assertSame(second, holder.canProcessMore());
+        assertSame(third, holder.canProcessMore());
+        assertNull(holder.canProcessMore());
+        assertEquals(0, holder.getNumberOfEvents());
+    }
+
+    @Test
+    public void testDropNewest() {
+        SubscriptionHolder holder = createHolder(2, OverflowPolicy.DROP_NEWEST);
+        JsonRpcEvent first = createEvent("uuid1");
+        JsonRpcEvent second = createEvent("uuid2");
+        holder.putEvent(first);
+        holder.putEvent(second);
+        holder.putEvent(createEvent("uuid3"));
+
+        assertEquals(1, holder.getDroppedEvents());
+        assertSame(first, holder.canProcessMore());
+        assertSame(second, holder.canProcessMore());
+        assertNull(holder.canProcessMore());
+    }
+
+    @Test
+    public void testCoalesce() {
+        SubscriptionHolder holder = createHolder(2, OverflowPolicy.COALESCE);
+        JsonRpcEvent second = createEvent("uuid2");
+        JsonRpcEvent latest = createEvent("uuid1");
+        JsonRpcEvent last = createEvent("uuid3");
+        holder.putEvent(createEvent("uuid1"));
+        holder.putEvent(second);
+        holder.putEvent(latest);
+
+        assertEquals(2, holder.getNumberOfEvents());
+        assertSame(second, holder.canProcessMore());
+        assertSame(latest, holder.canProcessMore());
+
+        holder.putEvent(createEvent("uuid4"));
+        holder.putEvent(createEvent("uuid5"));
+        holder.putEvent(last);
+        assertEquals(2, holder.getDroppedEvents());
+        holder.canProcessMore();
+        assertSame(last, holder.canProcessMore());
+    }
+
+    @Test
+    public void testCoalesceAfterEventTaken() {
+        SubscriptionHolder holder = createHolder(2, OverflowPolicy.COALESCE);
+        JsonRpcEvent first = createEvent("uuid1");
+        JsonRpcEvent second = createEvent("uuid2");
+        JsonRpcEvent third = createEvent("uuid3");
+        JsonRpcEvent latest = createEvent("uuid2");
+        holder.putEvent(first);
+        holder.putEvent(second);
+        assertSame(first, holder.canProcessMore());
+        assertSame(second, holder.canProcessMore());
+
+        for (int i = 0; i < 10; i++) {
+            holder.putEvent(createEvent("uuid" + (10 + i)));
+            holder.canProcessMore();
+        }
+        holder.putEvent(first);
+        holder.putEvent(third);
+        holder.putEvent(latest);
+
+        assertEquals(1, holder.getDroppedEvents());
+        assertSame(third, holder.canProcessMore());
+        assertSame(latest, holder.canProcessMore());
+        assertNull(holder.canProcessMore());
+    }
+
+    @Test
+    public void testError() {
+        SubscriptionHolder holder = createHolder(1, OverflowPolicy.ERROR);
+        JsonRpcEvent first = createEvent("uuid1");
+        holder.putEvent(first);
+        assertFalse(holder.isOverflowed());
+
+        holder.putEvent(createEvent("uuid2"));
+        assertTrue(holder.isOverflowed());
+        assertTrue(holder.clearOverflow());
+        assertFalse(holder.clearOverflow());
+        assertEquals(1, holder.getDroppedEvents());
+        assertSame(first, holder.canProcessMore());
+    }
+
+    @Test
+    public void testCoalescingByUid() {
+        SubscriptionHolder holder = createCoalescingHolder(null);
+        JsonRpcEvent latest = createEvent("uuid1");
+        JsonRpcEvent second = createEvent("uuid2");
+        holder.putEvent(createEvent("uuid1"));
+        holder.putEvent(second);
+        holder.putEvent(createEvent("uuid1"));
+        holder.putEvent(latest);
+
+        assertEquals(2, holder.getNumberOfEvents());
+        assertEquals(2, holder.getCoalescedEvents());
+        assertEquals(0, holder.getDroppedEvents());
+        assertSame(second, holder.canProcessMore());
+        assertSame(latest, holder.canProcessMore());
+        assertNull(holder.canProcessMore());
+
+        holder.putEvent(createEvent("uuid1"));
+        assertEquals(1, holder.getNumberOfEvents());
+    }
+
+    @Test
+    public void testCoalescingByField() {
+        SubscriptionHolder holder = createCoalescingHolder("vmId");
+        JsonRpcEvent first = createEvent("*", "vm1");
+        JsonRpcEvent second = createEvent("*", "vm2");
+        JsonRpcEvent latest = createEvent("*", "vm1");
+        holder.putEvent(first);
+        holder.putEvent(second);
+        holder.putEvent(latest);
+
+        assertEquals(2, holder.getNumberOfEvents());
+        assertSame(second, holder.canProcessMore());
+        assertSame(latest, holder.canProcessMore());
+    }
+
+    @Test
+    public void testPurgeCoalescing() {
+        SubscriptionHolder holder = createCoalescingHolder(null);
+        long expired = System.nanoTime() - TimeUnit.HOURS.toNanos(2);
+        JsonRpcEvent first = createEvent("uuid1");
+        when(first.getArrivalTime()).thenReturn(expired);
+        JsonRpcEvent stale = createEvent("uuid2");
+        when(stale.getArrivalTime()).thenReturn(expired);
+        JsonRpcEvent latest = createEvent("uuid1");
+        when(latest.getArrivalTime()).thenReturn(System.nanoTime());
+        holder.putEvent(first);
+        holder.putEvent(stale);
+        holder.putEvent(latest);
+
+        holder.purgeOldEventsIfNotConsumed(1);
+        assertEquals(1, holder.getNumberOfEvents());
+        assertEquals(1, holder.getDroppedEvents());
+        assertSame(latest, holder.canProcessMore());
+    }
+
+    @Test
+    public void testCoalescingByFieldKeepsParamsNotParsed() throws IOException {
+        SubscriptionHolder holder = createCoalescingHolder("vmId");
+        JsonRpcEvent first = receiveEvent("vm1");
+        JsonRpcEvent second = receiveEvent("vm2");
+        JsonRpcEvent latest = receiveEvent("vm1");
+        holder.putEvent(first);
+        holder.putEvent(second);
+        holder.putEvent(latest);
+
+        assertEquals(2, holder.getNumberOfEvents());
+        assertNotNull(second.getRawParams());
+        assertNotNull(latest.getRawParams());
+        assertSame(second, holder.canProcessMore());
+        assertSame(latest, holder.canProcessMore());
+    }
+
+    @Test
+    public void testDrainHonorsDemand() {
+        EventSubscriber subscriber = mock(EventSubscriber.class);
+        when(subscriber.getSubscriptionId()).thenReturn("*|testcase|*|*");
+        SubscriptionHolder holder = new SubscriptionHolder(subscriber);
+        for (int i = 0; i < 5; i++) {
+            holder.putEvent(createEvent("uuid" + i));
+        }
+        List<JsonRpcEvent> batch = new ArrayList<>();
+        assertEquals(0, holder.drain(10, batch));
+
+        holder.incrementCount(3);
+        assertEquals(2, holder.drain(2, batch));
+        assertEquals(1, holder.drain(10, batch));
+        assertEquals(0, holder.drain(10, batch));
+        assertEquals(3, batch.size());
+        assertEquals(2, holder.getNumberOfEvents());
+        assertFalse(holder.canProcess());
+    }
+}
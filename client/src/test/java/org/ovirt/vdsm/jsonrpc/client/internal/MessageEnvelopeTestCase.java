@@ -0,0 +1,115 @@
+package org.ovirt.vdsm.jsonrpc.client.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.UTF8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.ovirt.vdsm.jsonrpc.client.EventDecomposer;
+import org.ovirt.vdsm.jsonrpc.client.JsonRpcEvent;
+import org.ovirt.vdsm.jsonrpc.client.JsonRpcResponse;
+import org.ovirt.vdsm.jsonrpc.client.ResponseDecomposer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class MessageEnvelopeTestCase {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void testResponse() throws IOException {
+        String result = "{\"name\": \"żółw\", \"list\": [1, {\"a\": null}], \"empty\": {}}";
+        byte[] message = ("{\"jsonrpc\": \"2.0\", \"unknown\": {\"id\": 5}, \"result\": " + result
+                + ", \"id\": \"ąę\"}").getBytes(UTF8);
+
+        List<MessageEnvelope> envelopes = MessageEnvelope.parse(MAPPER, message);
+
+        assertEquals(1, envelopes.size());
+        MessageEnvelope envelope = envelopes.get(0);
+        assertEquals("ąę", envelope.getId().asText());
+        assertNull(envelope.getError());
+        assertNull(envelope.getResult());
+        assertEquals(result, envelope.getRawResult().toString());
+
+        JsonRpcResponse response = JsonRpcResponse.fromEnvelope(envelope);
+        assertEquals(JsonRpcResponse.fromByteArray(message), response);
+        assertNull(response.getRawResult());
+    }
+
+    @Test
+    public void testDecomposeRaw() throws IOException {
+        byte[] message = "{\"jsonrpc\": \"2.0\", \"result\": [\"a\", \"b\"], \"id\": 1}".getBytes(UTF8);
+
+        JsonRpcResponse response = JsonRpcResponse.fromEnvelope(MessageEnvelope.parse(MAPPER, message).get(0));
+        Object[] result = new ResponseDecomposer(response).decomposeResponse(Object[].class);
+
+        assertEquals(2, result.length);
+        assertEquals("b", result[1]);
+        // decomposition does not need the tree
+        assertNotNull(response.getRawResult());
+    }
+
+    @Test
+    public void testBatch() throws IOException {
+        byte[] message = ("[{\"jsonrpc\": \"2.0\", \"result\": true, \"error\": null, \"id\": 1},"
+                + "{\"jsonrpc\": \"2.0\", \"method\": \"|virt|VM_status|1\", \"params\": {\"status\": \"Up\"}}]")
+                .getBytes(UTF8);
+
+        List<MessageEnvelope> envelopes = MessageEnvelope.parse(MAPPER, message);
+
+        assertEquals(2, envelopes.size());
+        MessageEnvelope response = envelopes.get(0);
+        assertTrue(response.getResult().asBoolean());
+        assertNull(response.getRawResult());
+        assertTrue(response.getError().isNull());
+
+        MessageEnvelope notification = envelopes.get(1);
+        assertNull(notification.getId());
+        JsonRpcEvent event = JsonRpcEvent.fromEnvelope(notification);
+        assertEquals("|virt|VM_status|1", event.getMethod());
+        Map<String, Object> params = new EventDecomposer().decompose(event);
+        assertEquals("Up", params.get("status"));
+        assertEquals("Up", event.getParams().get("status").asText());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingVersion() throws IOException {
+        byte[] message = "{\"result\": {}, \"id\": 1}".getBytes(UTF8);
+        JsonRpcResponse.fromEnvelope(MessageEnvelope.parse(MAPPER, message).get(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotObject() throws IOException {
+        MessageEnvelope.parse(MAPPER, "\"text\"".getBytes(UTF8));
+    }
+
+    @Test
+    public void testBufferViews() throws IOException {
+        String result = "{\"name\": \"żółw\", \"list\": [1, 2]}";
+        byte[] message = ("{\"jsonrpc\": \"2.0\", \"result\": " + result + ", \"id\": 3}").getBytes(UTF8);
+        byte[] padded = new byte[message.length + 10];
+        System.arraycopy(message, 0, padded, 7, message.length);
+
+        ByteBuffer slice = ByteBuffer.wrap(padded, 7, message.length).slice();
+        ByteBuffer readOnly = ByteBuffer.wrap(padded, 7, message.length).asReadOnlyBuffer();
+        ByteBuffer direct = ByteBuffer.allocateDirect(padded.length);
+        direct.put(padded).limit(7 + message.length).position(7);
+
+        for (ByteBuffer buffer : new ByteBuffer[] { slice, readOnly, direct }) {
+            int position = buffer.position();
+            List<MessageEnvelope> envelopes = MessageEnvelope.parse(MAPPER, buffer);
+
+            assertEquals(1, envelopes.size());
+            assertEquals(3, envelopes.get(0).getId().asInt());
+            assertEquals(result, envelopes.get(0).getRawResult().toString());
+            assertEquals("żółw", envelopes.get(0).getRawResult().toJsonNode(MAPPER).get("name").asText());
+            assertEquals(position, buffer.position());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.ovirt.vdsm.jsonrpc.client.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.ovirt.vdsm.jsonrpc.client.JsonRpcRequest;
+import org.ovirt.vdsm.jsonrpc.client.reactors.ReactorClient;
+import org.ovirt.vdsm.jsonrpc.client.utils.ResponseTracking;
+import org.ovirt.vdsm.jsonrpc.client.utils.retry.RetryContext;
+import org.ovirt.vdsm.jsonrpc.testutils.Performance;
+
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+public class ResponseTrackerContentionTestCase {
+    private static final int[] THREADS = { 1, 2, 4, 8, 16, 32, 64 };
+    private static final int REQUESTS_PER_THREAD = 50000;
+    private static final ClientPolicy POLICY = new ClientPolicy(180000, 3, 0);
+    private ResponseTracker tracker;
+    private Thread trackerThread;
+
+    @Before
+    public void setup() {
+        this.tracker = new ResponseTracker();
+        this.trackerThread = new Thread(this.tracker);
+        this.trackerThread.setDaemon(true);
+        this.trackerThread.start();
+    }
+
+    @After
+    public void tearDown() {
+        this.tracker.close();
+    }
+
+    @Test
+    @Category(Performance.class)
+    public void testContention() throws InterruptedException {
+        for (int threads : THREADS) {
+            long time = submit(threads);
+            long throughput = TimeUnit.SECONDS.toNanos(1) * threads * REQUESTS_PER_THREAD / time;
+            System.out.println("Threads " + threads + ": " + throughput + " requests/s");
+        }
+        this.tracker.getHostMap().values().forEach(ids -> assertEquals(0, ids.size()));
+    }
+
+    private long submit(int threads) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        List<Thread> submitters = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            ReactorClient client = mock(ReactorClient.class, withSettings().stubOnly());
+            when(client.getClientId()).thenReturn("host" + i + ":" + threads);
+            int thread = i;
+            submitters.add(new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < REQUESTS_PER_THREAD; j++) {
+                        track(client, new TextNode(thread + "-" + j));
+                    }
+                } catch (InterruptedException ignored) {
+                } finally {
+                    done.countDown();
+                }
+            }));
+        }
+        submitters.forEach(Thread::start);
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+
+    private void track(ReactorClient client, TextNode id) {
+        JsonRpcRequest request = new JsonRpcRequest("Host.getStats", IntNode.valueOf(0), id);
+        Call call = new Call(request);
+        this.tracker.registerCall(request, call);
+        this.tracker.registerTrackingRequest(request, new ResponseTracking(request, call, new RetryContext(POLICY),
+                System.currentTimeMillis() + POLICY.getRetryTimeOut(), client, false));
+        this.tracker.removeCall(id);
+    }
+}
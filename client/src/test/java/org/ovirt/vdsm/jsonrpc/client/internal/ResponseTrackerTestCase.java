@@ -1,24 +1,41 @@
 package org.ovirt.vdsm.jsonrpc.client.internal;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.jsonToByteArray;
 
 import java.nio.channels.Selector;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.TextNode;
 import org.junit.Before;
 import org.junit.Test;
 import org.ovirt.vdsm.jsonrpc.client.JsonRpcRequest;
+import org.ovirt.vdsm.jsonrpc.client.RequestAlreadySentException;
 import org.ovirt.vdsm.jsonrpc.client.reactors.Reactor;
 import org.ovirt.vdsm.jsonrpc.client.reactors.ReactorClient;
 import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.StompClient;
 import org.ovirt.vdsm.jsonrpc.client.utils.ResponseTracking;
+import org.ovirt.vdsm.jsonrpc.client.utils.retry.RetryContext;
 
 public class ResponseTrackerTestCase {
 
@@ -73,8 +90,76 @@ public class ResponseTrackerTestCase {
         tracker.registerTrackingRequest(request, tracking);
         tracker.removeCall(idNode);
 
-        Map<String, List<JsonNode>> map = tracker.getHostMap();
+        Map<String, Set<JsonNode>> map = tracker.getHostMap();
         assertEquals(1, map.keySet().size());
         assertEquals(0, map.get(client.getClientId()).size());
     }
+
+    @Test
+    public void testRetryAndFailure() throws InterruptedException {
+        when(client.getClientId()).thenReturn("127.0.0.1:" + client.hashCode());
+        doNothing().when(client).sendMessage(any(byte[].class));
+        JsonRpcRequest request = new JsonRpcRequest("Host.getStats", new ObjectMapper().createObjectNode(), idNode);
+        Call call = new Call(request);
+        ResponseTracking tracking = new ResponseTracking(request, call, new RetryContext(new ClientPolicy(0, 2, 0)),
+                System.currentTimeMillis(), client, false);
+
+        ResponseTracker tracker = new ResponseTracker();
+        tracker.registerCall(request, call);
+        tracker.registerTrackingRequest(request, tracking);
+
+        tracker.loop();
+        verify(client, times(1)).sendMessage(any(byte[].class));
+        assertFalse(call.isDone());
+
+        tracker.loop(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(1));
+        verify(client, times(1)).sendMessage(any(byte[].class));
+        assertTrue(call.isDone());
+        assertNotNull(call.get().getError());
+        assertEquals(0, tracker.getHostMap().get(client.getClientId()).size());
+    }
+
+    private ResponseTracking createBatchTracking(JsonRpcRequest request, ResponseTracker tracker) {
+        return new ResponseTracking(request, new AsyncCall(request, tracker),
+                new RetryContext(new ClientPolicy(0, 2, 0)), System.currentTimeMillis(), client, false);
+    }
+
+    @Test
+    public void testBatchPartialRetry() {
+        when(client.getClientId()).thenReturn("127.0.0.1:" + client.hashCode());
+        doNothing().when(client).sendMessage(any(byte[].class));
+        JsonRpcRequest answered = new JsonRpcRequest("Host.getStats", new ObjectMapper().createObjectNode(), idNode);
+        JsonRpcRequest pending = new JsonRpcRequest("Host.getStats", new ObjectMapper().createObjectNode(),
+                new TextNode(UUID.randomUUID().toString()));
+
+        ResponseTracker tracker = new ResponseTracker();
+        tracker.registerBatch(Arrays.asList(createBatchTracking(answered, tracker),
+                createBatchTracking(pending, tracker)));
+        assertEquals(2, tracker.getHostMap().get(client.getClientId()).size());
+        assertNotNull(tracker.removeCall(answered.getId()));
+
+        tracker.loop(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(1));
+        verify(client, times(1)).sendMessage(aryEq(jsonToByteArray(pending.toJson())));
+        verify(client, never()).sendMessage(aryEq(jsonToByteArray(answered.toJson())));
+    }
+
+    @Test
+    public void testBatchAlreadySent() {
+        when(client.getClientId()).thenReturn("127.0.0.1:" + client.hashCode());
+        JsonRpcRequest first = new JsonRpcRequest("Host.getStats", new ObjectMapper().createObjectNode(), idNode);
+        JsonRpcRequest sent = new JsonRpcRequest("Host.getStats", new ObjectMapper().createObjectNode(),
+                new TextNode(UUID.randomUUID().toString()));
+
+        ResponseTracker tracker = new ResponseTracker();
+        tracker.registerCall(sent, new Call(sent));
+        try {
+            tracker.registerBatch(Arrays.asList(createBatchTracking(first, tracker),
+                    createBatchTracking(sent, tracker)));
+            fail();
+        } catch (RequestAlreadySentException expected) {
+            // nothing from the batch is registered
+        }
+        assertNull(tracker.removeCall(first.getId()));
+        assertTrue(tracker.getHostMap().isEmpty());
+    }
 }
@@ -0,0 +1,80 @@
+package org.ovirt.vdsm.jsonrpc.client.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TimingWheelTestCase {
+    private static final long START = 1000;
+
+    @Test
+    public void testExpiration() {
+        TimingWheel wheel = new TimingWheel(10, 8, START);
+        List<String> expired = new ArrayList<>();
+        wheel.schedule(timeout -> expired.add("second"), START + 25);
+        wheel.schedule(timeout -> expired.add("first"), START + 10);
+
+        wheel.advance(START + 9);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(START + 10);
+        assertEquals(Arrays.asList("first"), expired);
+
+        wheel.advance(START + 29);
+        assertEquals(Arrays.asList("first"), expired);
+
+        wheel.advance(START + 30);
+        assertEquals(Arrays.asList("first", "second"), expired);
+    }
+
+    @Test
+    public void testSeveralRounds() {
+        TimingWheel wheel = new TimingWheel(10, 4, START);
+        List<TimingWheel.Timeout> expired = new ArrayList<>();
+        TimingWheel.Timeout timeout = wheel.schedule(expired::add, START + 105);
+
+        wheel.advance(START + 100);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(START + 110);
+        assertEquals(Arrays.asList(timeout), expired);
+        assertTrue(timeout.isExpired());
+    }
+
+    @Test
+    public void testPastDeadline() {
+        TimingWheel wheel = new TimingWheel(10, 4, START);
+        wheel.advance(START + 50);
+        List<TimingWheel.Timeout> expired = new ArrayList<>();
+        wheel.schedule(expired::add, START);
+
+        wheel.advance(START + 60);
+        assertEquals(1, expired.size());
+    }
+
+    @Test
+    public void testCancel() {
+        TimingWheel wheel = new TimingWheel(10, 4, START);
+        List<TimingWheel.Timeout> expired = new ArrayList<>();
+        TimingWheel.Timeout beforeTransfer = wheel.schedule(expired::add, START + 20);
+        assertTrue(beforeTransfer.cancel());
+
+        TimingWheel.Timeout afterTransfer = wheel.schedule(expired::add, START + 20);
+        wheel.advance(START);
+        assertTrue(afterTransfer.cancel());
+        assertFalse(afterTransfer.cancel());
+
+        TimingWheel.Timeout remaining = wheel.schedule(expired::add, START + 20);
+        wheel.advance(START + 100);
+
+        assertEquals(Arrays.asList(remaining), expired);
+        assertTrue(beforeTransfer.isCancelled());
+        assertFalse(remaining.cancel());
+    }
+}
@@ -0,0 +1,64 @@
+package org.ovirt.vdsm.jsonrpc.client.reactors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Test;
+import org.ovirt.vdsm.jsonrpc.client.ClientConnectionException;
+import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.StompReactor;
+
+public class ReactorGroupTestCase {
+    private static final String HOSTNAME = "localhost";
+    private ReactorGroup group;
+
+    private ReactorGroup createGroup(int size, ReactorGroup.Assignment assignment) throws IOException {
+        Reactor[] reactors = new Reactor[size];
+        for (int i = 0; i < size; i++) {
+            reactors[i] = new StompReactor();
+        }
+        this.group = new ReactorGroup(reactors, assignment);
+        return this.group;
+    }
+
+    @After
+    public void tearDown() {
+        if (this.group != null) {
+            this.group.close();
+        }
+    }
+
+    @Test
+    public void testRoundRobin() throws IOException, ClientConnectionException {
+        ReactorGroup group = createGroup(3, ReactorGroup.Assignment.ROUND_ROBIN);
+        for (int i = 0; i < 9; i++) {
+            group.createClient(HOSTNAME, 54321);
+        }
+
+        for (Reactor reactor : group.getReactors()) {
+            assertEquals(3, reactor.getNumberOfClients());
+        }
+    }
+
+    @Test
+    public void testLeastConnections() throws IOException, ClientConnectionException {
+        ReactorGroup group = createGroup(2, ReactorGroup.Assignment.LEAST_CONNECTIONS);
+        Reactor first = group.getReactors().get(0);
+        Reactor second = group.getReactors().get(1);
+
+        ReactorClient client1 = group.createClient(HOSTNAME, 54321);
+        ReactorClient client2 = group.createClient(HOSTNAME, 54321);
+        assertEquals(1, first.getNumberOfClients());
+        assertEquals(1, second.getNumberOfClients());
+
+        client1.close();
+        client1.close();
+        assertEquals(0, first.getNumberOfClients());
+        assertSame(first, group.next());
+
+        client2.close();
+        assertEquals(0, second.getNumberOfClients());
+    }
+}
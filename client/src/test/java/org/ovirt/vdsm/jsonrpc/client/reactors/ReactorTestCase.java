@@ -2,6 +2,7 @@ package org.ovirt.vdsm.jsonrpc.client.reactors;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.StompCommonClient.DEFAULT_REQUEST_QUEUE;
@@ -91,6 +92,40 @@ public class ReactorTestCase {
         assertTrue(listenerCloseTask.isDone());
     }
 
+    @Test
+    public void testSuspendReading() throws InterruptedException, ExecutionException, TimeoutException,
+            ClientConnectionException {
+        final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(1);
+        int port = FreePorts.findFreePort();
+        final Future<ReactorListener> futureListener = this.reactorForListener.createListener(HOSTNAME,
+                port,
+                client -> client.addEventListener(client::sendMessage));
+        ReactorListener listener = futureListener.get(TIMEOUT_SEC, TimeUnit.SECONDS);
+
+        ReactorClient client = this.reactorForClient.createClient(HOSTNAME, port);
+        client.setClientPolicy(new StompClientPolicy(180000,
+                0,
+                10000,
+                IOException.class,
+                DEFAULT_REQUEST_QUEUE,
+                DEFAULT_RESPONSE_QUEUE));
+        client.addEventListener(queue::add);
+        client.connect();
+
+        client.suspendReading();
+        client.sendMessage(DATA.getBytes());
+        // echoed message waits in the socket while reading is suspended
+        assertNull(queue.poll(500, TimeUnit.MILLISECONDS));
+
+        client.resumeReading();
+        byte[] message = queue.poll(TIMEOUT_SEC, TimeUnit.SECONDS);
+        assertNotNull(message);
+        assertArrayEquals(DATA.getBytes(), message);
+
+        closeWithTimeout(client.close());
+        closeWithTimeout(listener.close());
+    }
+
     @Test
     @Category(TimeDepending.class)
     public void testNotConnectedRetry() throws InterruptedException, TimeoutException, ClientConnectionException,
@@ -0,0 +1,87 @@
+package org.ovirt.vdsm.jsonrpc.client.reactors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLEngineResult.Status;
+import javax.net.ssl.SSLSession;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SSLEngineNioHelperTestCase {
+
+    private SocketChannel channel;
+    private SSLEngineNioHelper helper;
+    private int accepted;
+
+    @Before
+    public void setUp() throws IOException {
+        SSLSession session = mock(SSLSession.class);
+        when(session.getApplicationBufferSize()).thenReturn(1024);
+        when(session.getPacketBufferSize()).thenReturn(1024);
+        SSLEngine engine = mock(SSLEngine.class);
+        when(engine.getSession()).thenReturn(session);
+        // each wrap moves at most 100 bytes of application data to the packet buffer unchanged
+        when(engine.wrap(any(ByteBuffer[].class), any(ByteBuffer.class))).thenAnswer(invocation -> {
+            ByteBuffer[] srcs = invocation.getArgument(0);
+            ByteBuffer dst = invocation.getArgument(1);
+            int consumed = 0;
+            for (ByteBuffer src : srcs) {
+                while (src.hasRemaining() && consumed < 100 && dst.hasRemaining()) {
+                    dst.put(src.get());
+                    consumed++;
+                }
+            }
+            return new SSLEngineResult(Status.OK, HandshakeStatus.NOT_HANDSHAKING, consumed, consumed);
+        });
+        this.channel = mock(SocketChannel.class);
+        when(this.channel.write(any(ByteBuffer.class))).thenAnswer(invocation -> {
+            ByteBuffer buffer = invocation.getArgument(0);
+            int written = Math.min(buffer.remaining(), this.accepted);
+            buffer.position(buffer.position() + written);
+            this.accepted -= written;
+            return written;
+        });
+        this.helper = new SSLEngineNioHelper(this.channel, engine, null, null);
+    }
+
+    @After
+    public void tearDown() {
+        this.helper.release();
+    }
+
+    @Test
+    public void testWriteStopsWhenChannelIsFull() throws IOException {
+        ByteBuffer first = ByteBuffer.wrap(new byte[300]);
+        this.accepted = 150;
+
+        this.helper.write(new ByteBuffer[] { first });
+        // second record was wrapped but only half of it was sent
+        assertEquals(100, first.remaining());
+        assertTrue(this.helper.hasPendingWrite());
+
+        ByteBuffer second = ByteBuffer.wrap(new byte[50]);
+        this.helper.write(new ByteBuffer[] { second });
+        assertEquals(50, second.remaining());
+
+        this.accepted = Integer.MAX_VALUE;
+        this.helper.write(new ByteBuffer[] { first, second });
+        assertFalse(first.hasRemaining());
+        assertFalse(second.hasRemaining());
+        assertFalse(this.helper.hasPendingWrite());
+        assertEquals(Integer.MAX_VALUE - 200, this.accepted);
+    }
+}
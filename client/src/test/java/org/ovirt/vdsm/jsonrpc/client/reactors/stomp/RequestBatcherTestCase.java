@@ -0,0 +1,132 @@
+package org.ovirt.vdsm.jsonrpc.client.reactors.stomp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_CORRELATION_ID;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.ovirt.vdsm.jsonrpc.client.ClientConnectionException;
+import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.FrameDecoder;
+import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.FrameEncoder;
+import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message;
+import org.slf4j.MDC;
+
+public class RequestBatcherTestCase {
+
+    @After
+    public void tearDown() {
+        MDC.remove(HEADER_CORRELATION_ID);
+    }
+
+    private static byte[] bytes(String message) {
+        return message.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] message) {
+        return new String(message, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testFullBatchSentImmediately() {
+        BlockingQueue<byte[]> sent = new LinkedBlockingQueue<>();
+        RequestBatcher batcher = new RequestBatcher((message, correlationId) -> sent.add(message));
+
+        batcher.add(bytes("{\"id\":1}"), TimeUnit.SECONDS.toMicros(60), 3);
+        batcher.add(bytes("{\"id\":2}"), TimeUnit.SECONDS.toMicros(60), 3);
+        assertTrue(sent.isEmpty());
+
+        batcher.add(bytes("{\"id\":3}"), TimeUnit.SECONDS.toMicros(60), 3);
+        assertEquals("[{\"id\":1},{\"id\":2},{\"id\":3}]", string(sent.poll()));
+        assertTrue(sent.isEmpty());
+    }
+
+    @Test
+    public void testWindowElapsed() throws InterruptedException {
+        BlockingQueue<byte[]> sent = new LinkedBlockingQueue<>();
+        RequestBatcher batcher = new RequestBatcher((message, correlationId) -> sent.add(message));
+
+        batcher.add(bytes("{\"id\":1}"), 1000, 100);
+        byte[] message = sent.poll(5, TimeUnit.SECONDS);
+        assertNotNull(message);
+        // single request is not wrapped into a batch
+        assertEquals("{\"id\":1}", string(message));
+        assertNull(sent.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testFlush() {
+        BlockingQueue<byte[]> sent = new LinkedBlockingQueue<>();
+        RequestBatcher batcher = new RequestBatcher((message, correlationId) -> sent.add(message));
+
+        batcher.add(bytes("{\"id\":1}"), TimeUnit.SECONDS.toMicros(60), 100);
+        batcher.add(bytes("{\"id\":2}"), TimeUnit.SECONDS.toMicros(60), 100);
+        batcher.flush();
+        batcher.flush();
+
+        assertEquals("[{\"id\":1},{\"id\":2}]", string(sent.poll()));
+        assertTrue(sent.isEmpty());
+    }
+
+    @Test
+    public void testCorrelationIdKeptOnTimerFlush() throws InterruptedException, ClientConnectionException {
+        FrameEncoder encoder = new FrameEncoder();
+        BlockingQueue<ByteBuffer[]> sent = new LinkedBlockingQueue<>();
+        RequestBatcher batcher = new RequestBatcher(
+                (message, correlationId) -> sent.add(encoder.send("requests", "responses", message, correlationId)));
+
+        MDC.put(HEADER_CORRELATION_ID, "correlation");
+        batcher.add(bytes("{\"id\":1}"), 1000, 100);
+        batcher.add(bytes("{\"id\":2}"), 1000, 100);
+        MDC.remove(HEADER_CORRELATION_ID);
+        ByteBuffer[] frame = sent.poll(5, TimeUnit.SECONDS);
+        assertNotNull(frame);
+
+        FrameDecoder decoder = new FrameDecoder();
+        for (ByteBuffer buffer : frame) {
+            decoder.getBuffer().put(buffer.duplicate());
+        }
+        Message message = decoder.decode();
+        assertEquals("correlation", message.getHeaders().get(HEADER_CORRELATION_ID));
+        assertEquals("[{\"id\":1},{\"id\":2}]", string(message.getContent()));
+    }
+
+    @Test
+    public void testCorrelationIdChangeFlushes() {
+        BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+        RequestBatcher batcher =
+                new RequestBatcher((message, correlationId) -> sent.add(correlationId + " " + string(message)));
+
+        MDC.put(HEADER_CORRELATION_ID, "first");
+        batcher.add(bytes("{\"id\":1}"), TimeUnit.SECONDS.toMicros(60), 100);
+        batcher.add(bytes("{\"id\":2}"), TimeUnit.SECONDS.toMicros(60), 100);
+        assertTrue(sent.isEmpty());
+
+        MDC.put(HEADER_CORRELATION_ID, "second");
+        batcher.add(bytes("{\"id\":3}"), TimeUnit.SECONDS.toMicros(60), 100);
+        assertEquals("first [{\"id\":1},{\"id\":2}]", sent.poll());
+        assertTrue(sent.isEmpty());
+
+        MDC.remove(HEADER_CORRELATION_ID);
+        batcher.add(bytes("{\"id\":4}"), TimeUnit.SECONDS.toMicros(60), 100);
+        assertEquals("second {\"id\":3}", sent.poll());
+        batcher.flush();
+        assertEquals("null {\"id\":4}", sent.poll());
+    }
+
+    @Test
+    public void testMergeBatches() {
+        byte[] merged = RequestBatcher.merge(Arrays.asList(bytes("[{\"id\":1},{\"id\":2}]"), bytes("[]"),
+                bytes("{\"id\":3}")));
+        assertEquals("[{\"id\":1},{\"id\":2},{\"id\":3}]", string(merged));
+    }
+}
@@ -1,7 +1,10 @@
 package org.ovirt.vdsm.jsonrpc.client.reactors.stomp;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.SSLStompClientTestCase.generateRandomMessage;
 import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.StompCommonClient.DEFAULT_REQUEST_QUEUE;
 import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.StompCommonClient.DEFAULT_RESPONSE_QUEUE;
@@ -12,12 +15,14 @@ import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.ovirt.vdsm.jsonrpc.client.ClientConnectionException;
+import org.ovirt.vdsm.jsonrpc.client.OutboxFullException;
 import org.ovirt.vdsm.jsonrpc.client.reactors.ReactorClient;
 import org.ovirt.vdsm.jsonrpc.client.reactors.ReactorListener;
 
@@ -49,6 +54,87 @@ public class StompClientTestCase {
         testEchoMessage(generateRandomMessage(524288));
     }
 
+    @Test
+    public void testOutboxLimits() throws InterruptedException, ExecutionException, ClientConnectionException {
+        final BlockingQueue<Boolean> changes = new LinkedBlockingQueue<>();
+        Future<ReactorListener> futureListener =
+                this.listeningReactor.createListener(HOSTNAME,
+                        0,
+                        client -> client.addEventListener(client::sendMessage)
+                );
+        ReactorListener listener = futureListener.get();
+
+        ReactorClient client = this.sendingReactor.createClient(HOSTNAME, listener.getPort());
+        StompClientPolicy policy =
+                new StompClientPolicy(180000, 0, 1000000, DEFAULT_REQUEST_QUEUE, DEFAULT_RESPONSE_QUEUE);
+        policy.setOutboxLimits(0, 2);
+        client.setClientPolicy(policy);
+        client.addWritabilityListener((source, writable) -> changes.add(writable));
+
+        // frames wait in the outbox until the client connects
+        client.sendMessage(generateRandomMessage(16).getBytes(UTF8));
+        assertTrue(client.isWritable());
+        client.sendMessage(generateRandomMessage(16).getBytes(UTF8));
+        assertFalse(client.isWritable());
+        assertEquals(Boolean.FALSE, changes.poll());
+        try {
+            client.awaitWritable();
+            fail();
+        } catch (OutboxFullException expected) {
+        }
+
+        client.connect();
+        assertEquals(Boolean.TRUE, changes.poll(TIMEOUT_SEC, TimeUnit.SECONDS));
+        assertTrue(client.isWritable());
+        client.awaitWritable();
+
+        client.close();
+        listener.close();
+    }
+
+    @Test
+    public void testWritableAfterConcurrentSends() throws InterruptedException, ExecutionException,
+            ClientConnectionException {
+        Future<ReactorListener> futureListener =
+                this.listeningReactor.createListener(HOSTNAME,
+                        0,
+                        client -> client.addEventListener(client::sendMessage)
+                );
+        ReactorListener listener = futureListener.get();
+
+        ReactorClient client = this.sendingReactor.createClient(HOSTNAME, listener.getPort());
+        StompClientPolicy policy =
+                new StompClientPolicy(180000, 0, 1000000, DEFAULT_REQUEST_QUEUE, DEFAULT_RESPONSE_QUEUE);
+        policy.setOutboxLimits(0, 4);
+        client.setClientPolicy(policy);
+        client.connect();
+
+        // senders race with the reactor draining the outbox
+        byte[] message = generateRandomMessage(16).getBytes(UTF8);
+        Thread[] senders = new Thread[4];
+        for (int i = 0; i < senders.length; i++) {
+            senders[i] = new Thread(() -> {
+                for (int j = 0; j < 2000; j++) {
+                    client.sendMessage(message);
+                }
+            });
+            senders[i].start();
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SEC);
+        while ((client.getOutboxFrames() != 0 || !client.isWritable()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, client.getOutboxFrames());
+        assertTrue(client.isWritable());
+
+        client.close();
+        listener.close();
+    }
+
     private void testEchoMessage(String message) throws ClientConnectionException, InterruptedException,
             ExecutionException {
         final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(1);
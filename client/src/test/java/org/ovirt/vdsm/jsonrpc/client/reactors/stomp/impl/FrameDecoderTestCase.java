@@ -0,0 +1,183 @@
+package org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_DESTINATION;
+import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.UTF8;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.ovirt.vdsm.jsonrpc.client.ClientConnectionException;
+import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.Command;
+import org.ovirt.vdsm.jsonrpc.client.utils.BufferPool;
+
+public class FrameDecoderTestCase {
+
+    private static List<Message> feed(FrameDecoder decoder, byte[] data, int chunk)
+            throws ClientConnectionException {
+        List<Message> messages = new ArrayList<>();
+        int offset = 0;
+        while (offset < data.length) {
+            ByteBuffer buffer = decoder.getBuffer();
+            int length = Math.min(Math.min(chunk, buffer.remaining()), data.length - offset);
+            buffer.put(data, offset, length);
+            offset += length;
+            Message message;
+            while ((message = decoder.decode()) != null) {
+                // content is valid until next read
+                message.getContent();
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+
+    private static byte[] concat(byte[]... arrays) {
+        int length = Arrays.stream(arrays).mapToInt(array -> array.length).sum();
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        Arrays.stream(arrays).forEach(buffer::put);
+        return buffer.array();
+    }
+
+    @Test
+    public void testSeveralFramesInSingleRead() throws ClientConnectionException {
+        byte[] content = "{\"jsonrpc\": \"2.0\", \"result\": true, \"id\": 1}".getBytes(UTF8);
+        byte[] data = concat(new Message().connected().withHeader("heart-beat", "0,5000").build(),
+                Message.HEARTBEAT_FRAME,
+                new Message().message().withHeader(HEADER_DESTINATION, "queue").withContent(content).build(),
+                Message.HEARTBEAT_FRAME);
+
+        List<Message> messages = feed(new FrameDecoder(), data, data.length);
+
+        assertEquals(2, messages.size());
+        assertEquals(Command.CONNECTED.toString(), messages.get(0).getCommand());
+        assertEquals("0,5000", messages.get(0).getHeaders().get("heart-beat"));
+        assertEquals(0, messages.get(0).getContent().length);
+        assertEquals(Command.MESSAGE.toString(), messages.get(1).getCommand());
+        assertEquals("queue", messages.get(1).getHeaders().get(HEADER_DESTINATION));
+        assertArrayEquals(content, messages.get(1).getContent());
+    }
+
+    @Test
+    public void testFrameSplitAcrossReads() throws ClientConnectionException {
+        byte[] content = new byte[3 * FrameDecoder.INITIAL_CAPACITY];
+        Arrays.fill(content, (byte) 'a');
+        // content-length allows null bytes in the body
+        content[10] = 0;
+        byte[] frame = new Message().message().withHeader(HEADER_DESTINATION, "queue").withContent(content).build();
+        byte[] data = concat(frame, frame);
+
+        for (int chunk : new int[] { 1, 7, 1000, data.length }) {
+            List<Message> messages = feed(new FrameDecoder(), data, chunk);
+
+            assertEquals(2, messages.size());
+            assertArrayEquals(content, messages.get(0).getContent());
+            assertArrayEquals(content, messages.get(1).getContent());
+        }
+    }
+
+    @Test
+    public void testCarriageReturn() throws ClientConnectionException {
+        byte[] data = "\r\nRECEIPT\r\nreceipt-id:77\r\n\r\n\0".getBytes(UTF8);
+
+        List<Message> messages = feed(new FrameDecoder(), data, 3);
+
+        assertEquals(1, messages.size());
+        assertEquals(Command.RECEIPT.toString(), messages.get(0).getCommand());
+        assertEquals("77", messages.get(0).getHeaders().get("receipt-id"));
+    }
+
+    @Test
+    public void testHeartbeatOnly() throws ClientConnectionException {
+        FrameDecoder decoder = new FrameDecoder();
+        decoder.getBuffer().put(Message.HEARTBEAT_FRAME);
+
+        assertNull(decoder.decode());
+    }
+
+    @Test(expected = ClientConnectionException.class)
+    public void testUnknownCommand() throws ClientConnectionException {
+        feed(new FrameDecoder(), "UNKNOWN\n\n\0".getBytes(UTF8), 100);
+    }
+
+    @Test
+    public void testBufferReturnedToPool() throws ClientConnectionException {
+        BufferPool pool = new BufferPool();
+        FrameDecoder decoder = new FrameDecoder(FrameDecoder.INITIAL_CAPACITY, pool);
+        assertTrue(decoder.getBuffer().isDirect());
+
+        byte[] content = new byte[4 * FrameDecoder.INITIAL_CAPACITY];
+        Arrays.fill(content, (byte) 'a');
+        byte[] data = new Message().message().withHeader(HEADER_DESTINATION, "queue").withContent(content).build();
+        List<Message> messages = feed(decoder, data, data.length);
+        assertEquals(1, messages.size());
+        assertArrayEquals(content, messages.get(0).getContent());
+
+        // large buffer is replaced by the initial one once the frame is consumed
+        assertEquals(FrameDecoder.INITIAL_CAPACITY, decoder.getBuffer().capacity());
+        assertEquals(1, pool.getOutstandingBuffers());
+        decoder.release();
+        assertEquals(0, pool.getOutstandingBuffers());
+        assertEquals(pool.getAcquiredBuffers(), pool.getReleasedBuffers());
+    }
+
+    @Test
+    public void testLargeBodyCopiedFromPooledBuffer() throws ClientConnectionException {
+        BufferPool pool = new BufferPool();
+        FrameDecoder decoder = new FrameDecoder(FrameDecoder.INITIAL_CAPACITY, pool);
+        byte[] content = new byte[2 * FrameDecoder.LARGE_BODY];
+        Arrays.fill(content, (byte) 'b');
+        content[100] = 0;
+        byte[] small = "{}".getBytes(UTF8);
+        byte[] data = concat(new Message().message().withHeader(HEADER_DESTINATION, "queue").withContent(content).build(),
+                new Message().message().withHeader(HEADER_DESTINATION, "queue").withContent(small).build());
+
+        decoder.getBuffer().put(data, 0, 1000);
+        assertNull(decoder.decode());
+        // rest of the body is read into a larger pooled buffer, not into a heap array
+        ByteBuffer buffer = decoder.getBuffer();
+        assertTrue(buffer.isDirect());
+        assertTrue(buffer.capacity() >= content.length - 1000);
+
+        List<Message> messages = feed(decoder, Arrays.copyOfRange(data, 1000, data.length), 4096);
+        assertEquals(2, messages.size());
+        assertArrayEquals(content, messages.get(0).getContent());
+        assertArrayEquals(small, messages.get(1).getContent());
+        assertEquals(FrameDecoder.INITIAL_CAPACITY, decoder.getBuffer().capacity());
+        assertEquals(1, pool.getOutstandingBuffers());
+    }
+
+    @Test
+    public void testLargeFrameWithoutContentLength() throws ClientConnectionException {
+        BufferPool pool = new BufferPool();
+        FrameDecoder decoder = new FrameDecoder(FrameDecoder.INITIAL_CAPACITY, pool);
+        char[] value = new char[3 * FrameDecoder.INITIAL_CAPACITY];
+        Arrays.fill(value, 'v');
+        byte[] content = new byte[12 * 1024 * 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        byte[] small = "{}".getBytes(UTF8);
+        byte[] data = concat(("MESSAGE\ndestination:queue\nlarge:" + new String(value) + "\n\n").getBytes(UTF8),
+                content, new byte[] { 0 },
+                new Message().message().withHeader(HEADER_DESTINATION, "queue").withContent(small).build());
+
+        List<Message> messages = feed(decoder, data, 64 * 1024);
+        assertEquals(2, messages.size());
+        assertEquals(new String(value), messages.get(0).getHeaders().get("large"));
+        assertArrayEquals(content, messages.get(0).getContent());
+        assertArrayEquals(small, messages.get(1).getContent());
+        // body is kept in buffers growing geometrically which are returned once the frame is decoded
+        assertTrue(pool.getAllocatedBuffers() < 20);
+        assertEquals(FrameDecoder.INITIAL_CAPACITY, decoder.getBuffer().capacity());
+        assertEquals(1, pool.getOutstandingBuffers());
+        decoder.release();
+        assertEquals(0, pool.getOutstandingBuffers());
+    }
+}
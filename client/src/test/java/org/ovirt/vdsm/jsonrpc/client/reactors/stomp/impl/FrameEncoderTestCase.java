@@ -0,0 +1,70 @@
+package org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_CONTENT_LENGTH;
+import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_CORRELATION_ID;
+import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_DESTINATION;
+import static org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.HEADER_REPLY_TO;
+import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.UTF8;
+
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Test;
+import org.ovirt.vdsm.jsonrpc.client.ClientConnectionException;
+import org.ovirt.vdsm.jsonrpc.client.reactors.stomp.impl.Message.Command;
+import org.slf4j.MDC;
+
+public class FrameEncoderTestCase {
+
+    @After
+    public void tearDown() {
+        MDC.remove(HEADER_CORRELATION_ID);
+    }
+
+    private static Message decode(ByteBuffer[] frame) throws ClientConnectionException {
+        FrameDecoder decoder = new FrameDecoder();
+        for (ByteBuffer buffer : frame) {
+            decoder.getBuffer().put(buffer.duplicate());
+        }
+        return decoder.decode();
+    }
+
+    @Test
+    public void testSend() throws ClientConnectionException {
+        byte[] content = "{\"jsonrpc\": \"2.0\", \"method\": \"Host.ping\", \"id\": \"ą\"}".getBytes(UTF8);
+        MDC.put(HEADER_CORRELATION_ID, "correlation");
+
+        ByteBuffer[] frame = new FrameEncoder().send("requests", "responses", content);
+        Message message = decode(frame);
+
+        // content is not copied
+        assertSame(content, frame[2].array());
+        assertEquals(Command.SEND.toString(), message.getCommand());
+        assertEquals("requests", message.getHeaders().get(HEADER_DESTINATION));
+        assertEquals("responses", message.getHeaders().get(HEADER_REPLY_TO));
+        assertEquals("correlation", message.getHeaders().get(HEADER_CORRELATION_ID));
+        assertEquals(Integer.toString(content.length), message.getHeaders().get(HEADER_CONTENT_LENGTH));
+        assertArrayEquals(content, message.getContent());
+    }
+
+    @Test
+    public void testHeaderReuse() throws ClientConnectionException {
+        FrameEncoder encoder = new FrameEncoder();
+
+        ByteBuffer[] first = encoder.send("requests", "responses", new byte[] { '1' });
+        ByteBuffer[] second = encoder.send("requests", "responses", new byte[] { '2' });
+        ByteBuffer[] third = encoder.send("other", "responses", new byte[] { '3' });
+
+        assertSame(first[0].array(), second[0].array());
+        assertNotSame(first[0].array(), third[0].array());
+        Message message = decode(third);
+        assertEquals("other", message.getHeaders().get(HEADER_DESTINATION));
+        assertNull(message.getHeaders().get(HEADER_CORRELATION_ID));
+        assertArrayEquals(new byte[] { '3' }, message.getContent());
+    }
+}
@@ -0,0 +1,73 @@
+package org.ovirt.vdsm.jsonrpc.client.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+import org.ovirt.vdsm.jsonrpc.client.utils.BufferPool.PooledBuffer;
+
+public class BufferPoolTestCase {
+
+    @Test
+    public void testReuse() {
+        BufferPool pool = new BufferPool();
+        PooledBuffer lease = pool.acquire(1000);
+        ByteBuffer buffer = lease.getBuffer();
+        assertTrue(buffer.isDirect());
+        assertEquals(BufferPool.MIN_CLASS_SIZE, buffer.capacity());
+        buffer.put((byte) 1);
+        lease.release();
+
+        PooledBuffer reused = pool.acquire(BufferPool.MIN_CLASS_SIZE);
+        assertSame(buffer, reused.getBuffer());
+        assertEquals(0, reused.getBuffer().position());
+        reused.release();
+
+        assertEquals(1, pool.getAllocatedBuffers());
+        assertEquals(2, pool.getAcquiredBuffers());
+        assertEquals(2, pool.getReleasedBuffers());
+        assertEquals(0, pool.getOutstandingBuffers());
+        assertEquals(BufferPool.MIN_CLASS_SIZE, pool.getPooledBytes());
+    }
+
+    @Test
+    public void testSizeClasses() {
+        BufferPool pool = new BufferPool();
+        PooledBuffer small = pool.acquire(BufferPool.MIN_CLASS_SIZE + 1);
+        PooledBuffer large = pool.acquire(BufferPool.MAX_CLASS_SIZE + 1);
+        assertEquals(2 * BufferPool.MIN_CLASS_SIZE, small.getBuffer().capacity());
+        assertEquals(BufferPool.MAX_CLASS_SIZE + 1, large.getBuffer().capacity());
+        assertEquals(2, pool.getOutstandingBuffers());
+
+        ByteBuffer buffer = large.getBuffer();
+        large.release();
+        small.release();
+        // buffers larger than the biggest class are not kept
+        assertNotSame(buffer, pool.acquire(BufferPool.MAX_CLASS_SIZE + 1).getBuffer());
+        assertEquals(2 * BufferPool.MIN_CLASS_SIZE, pool.getPooledBytes());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDoubleRelease() {
+        PooledBuffer lease = new BufferPool().acquire(1);
+        lease.release();
+        lease.release();
+    }
+
+    @Test
+    public void testLeakDetected() throws InterruptedException {
+        BufferPool pool = new BufferPool();
+        pool.acquire(1);
+        for (int i = 0; i < 100 && pool.getLeakedBuffers() == 0; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertEquals(1, pool.getLeakedBuffers());
+        assertEquals(0, pool.getOutstandingBuffers());
+        assertEquals(0, pool.getPooledBytes());
+    }
+}
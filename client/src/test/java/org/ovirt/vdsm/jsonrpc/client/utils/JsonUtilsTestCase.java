@@ -0,0 +1,84 @@
+package org.ovirt.vdsm.jsonrpc.client.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.mapValues;
+import static org.ovirt.vdsm.jsonrpc.client.utils.JsonUtils.toValue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class JsonUtilsTestCase {
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.USE_JAVA_ARRAY_FOR_JSON_ARRAY, true);
+    private static final String MESSAGE = "{\"status\": \"Up\", \"int\": 1, \"long\": 12345678901, "
+            + "\"big\": 123456789012345678901234567890, \"double\": 1.5, \"bool\": true, \"nothing\": null, "
+            + "\"list\": [1, \"a\", [], {\"nested\": [false]}], \"map\": {\"a\": {\"b\": -2}}}";
+
+    private static Map<String, Object> roundTrip(JsonNode node) throws IOException {
+        return MAPPER.readValue(MAPPER.writeValueAsBytes(node), new TypeReference<HashMap<String, Object>>() {
+        });
+    }
+
+    private static void assertSameValue(Object expected, Object actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertEquals(expected.getClass(), actual.getClass());
+        if (expected instanceof Object[]) {
+            Object[] expectedArray = (Object[]) expected;
+            Object[] actualArray = (Object[]) actual;
+            assertEquals(expectedArray.length, actualArray.length);
+            for (int i = 0; i < expectedArray.length; i++) {
+                assertSameValue(expectedArray[i], actualArray[i]);
+            }
+        } else if (expected instanceof Map) {
+            Map<?, ?> expectedMap = (Map<?, ?>) expected;
+            Map<?, ?> actualMap = (Map<?, ?>) actual;
+            assertEquals(expectedMap.keySet(), actualMap.keySet());
+            expectedMap.forEach((key, value) -> assertSameValue(value, actualMap.get(key)));
+        } else {
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testSameAsRoundTrip() throws IOException {
+        JsonNode node = MAPPER.readTree(MESSAGE);
+
+        assertSameValue(roundTrip(node), mapValues(node));
+    }
+
+    @Test
+    public void testConstructedNumbers() throws IOException {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("long", 5L);
+        node.put("float", 1.1f);
+        node.put("decimal", new BigDecimal("2.5"));
+        node.put("bigint", BigInteger.TEN);
+        node.put("binary", new byte[] { 1, 2, 3 });
+
+        assertSameValue(roundTrip(node), mapValues(node));
+    }
+
+    @Test
+    public void testNotObject() throws IOException {
+        assertNull(mapValues(null));
+        assertNull(mapValues(MAPPER.readTree("null")));
+        assertNull(mapValues(MAPPER.readTree("[1]")));
+        assertArrayEquals(new Object[] { 1, "a" }, (Object[]) toValue(MAPPER.readTree("[1, \"a\"]")));
+    }
+}